@@ -5,6 +5,7 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import com.idtfe.services.ApiClient;
+import com.idtfe.services.TaskExecutor;
 
 public class Main extends Application {
     
@@ -25,6 +26,13 @@ public class Main extends Application {
         ApiClient.getInstance().checkHealth();
     }
     
+    @Override
+    public void stop() {
+        // The async HTTP client runs its own I/O threads; release them on exit
+        ApiClient.getInstance().shutdown();
+        TaskExecutor.getInstance().shutdown();
+    }
+    
     public static void main(String[] args) {
         launch(args);
     }
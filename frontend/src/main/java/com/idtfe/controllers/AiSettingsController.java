@@ -2,6 +2,7 @@ package com.idtfe.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.idtfe.services.ApiClient;
+import com.idtfe.services.TaskExecutor;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
@@ -30,7 +31,7 @@ public class AiSettingsController implements Initializable {
 
     private void loadCurrent() {
         // attempt to read current status from backend
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 String resp = api.get("/api/v1/tools/github/status");
                 Map<String, Object> data = objectMapper.readValue(resp, Map.class);
@@ -38,13 +39,13 @@ public class AiSettingsController implements Initializable {
             } catch (IOException e) {
                 javafx.application.Platform.runLater(() -> outputArea.setText("Failed to load status: " + e.getMessage()));
             }
-        }).start();
+        });
     }
 
     private void saveConfig() {
         String url = grocUrlField.getText();
         String key = aiKeyField.getText();
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 var payload = Map.of("ai_key", key, "groc_url", url);
                 String resp = api.post("/api/v1/tools/ai/config", payload);
@@ -53,12 +54,12 @@ public class AiSettingsController implements Initializable {
             } catch (Exception e) {
                 javafx.application.Platform.runLater(() -> outputArea.setText("Save failed: " + e.getMessage()));
             }
-        }).start();
+        });
     }
 
     private void testConfig() {
         String prompt = "Test message from I.D.T.F.E";
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 String resp = api.post("/api/v1/tools/assistant", Map.of("prompt", prompt));
                 Map<String, Object> data = objectMapper.readValue(resp, Map.class);
@@ -66,6 +67,6 @@ public class AiSettingsController implements Initializable {
             } catch (Exception e) {
                 javafx.application.Platform.runLater(() -> outputArea.setText("Test failed: " + e.getMessage()));
             }
-        }).start();
+        });
     }
 }
@@ -4,6 +4,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import com.idtfe.services.ApiClient;
+import com.idtfe.services.TaskExecutor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.net.URL;
@@ -41,7 +42,7 @@ public class ApiTesterController implements Initializable {
         sendButton.setDisable(true);
         statusLabel.setText("Sending request...");
         
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 Map<String, Object> requestData = new HashMap<>();
                 requestData.put("url", url);
@@ -65,7 +66,7 @@ public class ApiTesterController implements Initializable {
                     statusLabel.setText("Request failed");
                 });
             }
-        }).start();
+        });
     }
     
     private Map<String, String> parseHeaders() {
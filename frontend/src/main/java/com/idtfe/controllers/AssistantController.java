@@ -32,15 +32,19 @@ public class AssistantController implements Initializable {
         messagesList.getItems().add("You: " + prompt);
         inputArea.clear();
 
-        new Thread(() -> {
-            try {
-                String resp = api.post("/api/v1/tools/assistant", Map.of("prompt", prompt));
-                Map<String, Object> data = objectMapper.readValue(resp, Map.class);
-                String reply = (String) data.getOrDefault("reply", "(no reply)");
-                javafx.application.Platform.runLater(() -> messagesList.getItems().add("Assistant: " + reply));
-            } catch (IOException ex) {
-                javafx.application.Platform.runLater(() -> messagesList.getItems().add("Error: " + ex.getMessage()));
-            }
-        }).start();
+        ApiClient.onFxThread(api.postAsync("/api/v1/tools/assistant", Map.of("prompt", prompt)))
+            .whenComplete((resp, error) -> {
+                if (error != null) {
+                    messagesList.getItems().add("Error: " + ApiClient.unwrap(error).getMessage());
+                    return;
+                }
+                try {
+                    Map<String, Object> data = objectMapper.readValue(resp, Map.class);
+                    String reply = (String) data.getOrDefault("reply", "(no reply)");
+                    messagesList.getItems().add("Assistant: " + reply);
+                } catch (IOException ex) {
+                    messagesList.getItems().add("Error: " + ex.getMessage());
+                }
+            });
     }
 }
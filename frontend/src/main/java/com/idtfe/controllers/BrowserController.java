@@ -7,6 +7,7 @@ import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
 import javafx.concurrent.Worker;
 import com.idtfe.services.ApiClient;
+import com.idtfe.services.TaskExecutor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.net.URL;
@@ -145,7 +146,7 @@ public class BrowserController implements Initializable {
     private void formatJsonContent(String jsonContent) {
         statusLabel.setText("Formatting JSON...");
         
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 // Parse and pretty-print JSON
                 Object jsonObject = objectMapper.readValue(jsonContent, Object.class);
@@ -171,7 +172,7 @@ public class BrowserController implements Initializable {
                 javafx.application.Platform.runLater(() -> 
                     statusLabel.setText("JSON format error: " + e.getMessage()));
             }
-        }).start();
+        });
     }
     
     public void loadUrl(String url) {
@@ -1,33 +1,65 @@
 package com.idtfe.controllers;
 
 import com.idtfe.services.ApiClient;
+import com.idtfe.services.BlobStore;
+import com.idtfe.services.EditJournal;
 import com.idtfe.services.EditorService;
+import com.idtfe.services.PieceTable;
+import com.idtfe.services.Prefetcher;
+import com.idtfe.services.RepoEntry;
+import com.idtfe.services.StagingArea;
+import com.idtfe.services.TaskExecutor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 
+import java.io.IOException;
 import java.net.URL;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.ResourceBundle;
 
 public class CodeYourGitRepoController implements Initializable {
     @FXML private ListView<Map<String, Object>> reposList;
-    @FXML private ListView<Map<String, Object>> filesList;
+    @FXML private TreeView<RepoEntry> filesTree;
     @FXML private TextArea editorArea;
     @FXML private Button refreshBtn;
     @FXML private Button openInEditorBtn;
     @FXML private Button saveLocalBtn;
     @FXML private Button pushToGitHubBtn;
+    @FXML private Button stageBtn;
+    @FXML private Label stagedLabel;
+    @FXML private ProgressBar pushProgress;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final ApiClient api = ApiClient.getInstance();
     private final EditorService editorService = new EditorService();
+    private final Prefetcher prefetcher = new Prefetcher();
+    private DocumentBinding document;
+    private RepoBrowser browser;
+    private StagingArea staging;   // of the selected repository
+    private String openPath;       // repository path of the file in the editor
+    private PieceTable openedText; // its text when loaded or last staged
+    private int opening;           // bumped per file opened or repository selected; late downloads are dropped
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         refreshBtn.setOnAction(e -> loadRepos());
+        document = new DocumentBinding(editorArea);
+        try {
+            document.journal(EditJournal.open("Git repo"));
+        } catch (IOException e) {
+            // edits are not journaled; saving and pushing still work
+        }
+        editorArea.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) {
+                stageEdited();
+                document.close();
+                prefetcher.cancel();
+            }
+        });
         reposList.setCellFactory(lv -> new ListCell<>() {
             @Override
             protected void updateItem(Map<String, Object> item, boolean empty) {
@@ -37,85 +69,139 @@ public class CodeYourGitRepoController implements Initializable {
             }
         });
 
-        filesList.setCellFactory(lv -> new ListCell<>() {
-            @Override
-            protected void updateItem(Map<String, Object> item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) setText(null);
-                else setText((String) item.getOrDefault("path", item.get("name")));
-            }
-        });
+        browser = new RepoBrowser(filesTree);
 
         reposList.getSelectionModel().selectedItemProperty().addListener((obs, oldV, newV) -> {
-            filesList.getItems().clear();
-            editorArea.clear();
+            stageEdited();
+            opening++;
+            browser.clear();
+            document.load("");
+            openPath = null;
+            staging = null;
+            prefetcher.cancel();
             if (newV != null) {
                 String full = (String) newV.get("full_name");
-                String[] parts = full.split("/");
-                if (parts.length == 2) fetchRepoContents(parts[0], parts[1], "");
+                if (full.split("/").length == 2) {
+                    staging = StagingArea.of(full);
+                    // The root is listed right away; the prefetched tree serves deeper directories
+                    browser.show(full, prefetcher.start(full, (String) newV.getOrDefault("default_branch", "HEAD")));
+                }
             }
+            updateStaged();
         });
 
-        filesList.getSelectionModel().selectedItemProperty().addListener((obs, oldV, newV) -> {
-            if (newV != null) loadFileContent(newV);
+        filesTree.getSelectionModel().selectedItemProperty().addListener((obs, oldV, newV) -> {
+            if (newV != null && newV.getValue() != null && newV.getValue().kind() == RepoEntry.Kind.FILE) loadFileContent(newV.getValue());
         });
 
         openInEditorBtn.setOnAction(e -> {
-            Map<String, Object> file = filesList.getSelectionModel().getSelectedItem();
-            if (file != null) loadFileContent(file);
+            RepoEntry file = browser.selected();
+            if (file != null && file.kind() == RepoEntry.Kind.FILE) loadFileContent(file);
         });
 
         saveLocalBtn.setOnAction(e -> {
-            String text = editorArea.getText();
-            Map<String, Object> file = filesList.getSelectionModel().getSelectedItem();
-            if (file != null) {
-                String path = (String) file.getOrDefault("path", file.get("name"));
+            PieceTable text = document.snapshot();
+            RepoEntry file = browser.selected();
+            if (file != null && file.kind() == RepoEntry.Kind.FILE) {
+                String path = file.path();
                 // Save locally using EditorService
                 boolean ok = editorService.saveFile(path.replaceAll("[\\/:]", "_"), text);
+                if (ok) document.saved(text);
                 Alert a = new Alert(ok ? Alert.AlertType.INFORMATION : Alert.AlertType.ERROR, ok ? "Saved locally" : "Failed to save");
                 a.showAndWait();
             }
         });
 
+        stageBtn.setOnAction(e -> {
+            if (staging == null || openPath == null) return;
+            openedText = document.snapshot();
+            staging.stage(openPath, openedText);
+            updateStaged();
+        });
         pushToGitHubBtn.setOnAction(e -> pushToGitHub());
 
         // initial load
         loadRepos();
     }
 
+    /** Pushes every staged file of the repository as one commit; the open file is staged first if edited. */
     private void pushToGitHub() {
         Map<String, Object> repo = reposList.getSelectionModel().getSelectedItem();
-        Map<String, Object> file = filesList.getSelectionModel().getSelectedItem();
-        if (repo == null || file == null) {
-            javafx.application.Platform.runLater(() -> new Alert(Alert.AlertType.WARNING, "Select a repository and file first").showAndWait());
+        if (repo == null || staging == null) {
+            new Alert(Alert.AlertType.WARNING, "Select a repository first").showAndWait();
             return;
         }
-        String full = (String) repo.get("full_name");
-        String[] parts = full.split("/");
-        if (parts.length != 2) return;
-        String owner = parts[0];
-        String repoName = parts[1];
-        String path = (String) file.getOrDefault("path", file.get("name"));
-        String content = editorArea.getText();
-        new Thread(() -> {
+        stageEdited();
+        // Nothing staged: push the open file, as a single-file push always did
+        if (staging.size() == 0 && openPath != null) staging.stage(openPath, document.snapshot());
+        int count = staging.size();
+        if (count == 0) {
+            new Alert(Alert.AlertType.WARNING, "Open or stage a file first").showAndWait();
+            return;
+        }
+        TextInputDialog dialog = new TextInputDialog(count == 1 ? "Update from I.D.T.F.E" : "Update " + count + " files from I.D.T.F.E");
+        dialog.setTitle("Push to GitHub");
+        dialog.setHeaderText("Commit " + count + (count == 1 ? " staged file" : " staged files") + " to " + repo.get("full_name"));
+        Optional<String> message = dialog.showAndWait().map(String::strip).filter(m -> !m.isEmpty());
+        if (message.isEmpty()) return;
+
+        StagingArea pushing = staging;
+        List<StagingArea.StagedFile> batch = pushing.files();
+        String branch = (String) repo.get("default_branch");
+        pushToGitHubBtn.setDisable(true);
+        pushProgress.setProgress(0);
+        pushProgress.setVisible(true);
+        TaskExecutor.getInstance().execute(() -> {
             try {
-                var payload = Map.of("path", path, "content", content, "message", "Update from I.D.T.F.E");
-                String url = String.format("/api/v1/tools/github/repos/%s/%s/file", owner, repoName);
-                String resp = api.post(url, payload);
-                Map<String, Object> data = objectMapper.readValue(resp, Map.class);
-                if ((Boolean) data.getOrDefault("success", false)) {
-                    javafx.application.Platform.runLater(() -> new Alert(Alert.AlertType.INFORMATION, "Pushed to GitHub").showAndWait());
-                } else {
-                    javafx.application.Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, "Failed: " + data.get("message")).showAndWait());
-                }
+                List<StagingArea.StagedFile> pushed = pushing.push(branch, message.get(),
+                    done -> javafx.application.Platform.runLater(() -> pushProgress.setProgress(done)));
+                javafx.application.Platform.runLater(() -> {
+                    pushFinished(pushing, pushed);
+                    new Alert(Alert.AlertType.INFORMATION, pushed.size() == 1 ? "Pushed to GitHub" : "Pushed " + pushed.size() + " files to GitHub").showAndWait();
+                });
             } catch (Exception ex) {
-                javafx.application.Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, "Error: " + ex.getMessage()).showAndWait());
+                javafx.application.Platform.runLater(() -> {
+                    // Without a batch endpoint some files may have gone before the failure; those are no longer staged
+                    pushFinished(pushing, batch.stream().filter(file -> pushing.get(file.path()) != file.text()).toList());
+                    new Alert(Alert.AlertType.ERROR, "Error: " + ex.getMessage()).showAndWait();
+                });
+            }
+        });
+    }
+
+    private void pushFinished(StagingArea pushing, List<StagingArea.StagedFile> pushed) {
+        pushToGitHubBtn.setDisable(false);
+        pushProgress.setVisible(false);
+        if (pushing == staging) {
+            for (StagingArea.StagedFile file : pushed) {
+                // The listed SHA is the old blob; download the file again until the list is refreshed
+                browser.changed(file.path());
+                if (file.path().equals(openPath) && CharSequence.compare(file.text(), document.snapshot()) == 0) {
+                    document.saved(file.text());
+                }
             }
-        }).start();
+        }
+        updateStaged();
+    }
+
+    /** Stages the open file if it was edited since it was loaded, so switching files keeps the change. */
+    private void stageEdited() {
+        if (staging == null || openPath == null) return;
+        PieceTable text = document.snapshot();
+        if (CharSequence.compare(text, openedText) != 0) {
+            staging.stage(openPath, text);
+            openedText = text;
+            updateStaged();
+        }
+    }
+
+    private void updateStaged() {
+        int count = staging == null ? 0 : staging.size();
+        stagedLabel.setText(count == 0 ? "" : count + " staged");
     }
 
     private void loadRepos() {
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 String resp = api.get("/api/v1/tools/github/repos");
                 Map<String, Object> data = objectMapper.readValue(resp, Map.class);
@@ -131,44 +217,49 @@ public class CodeYourGitRepoController implements Initializable {
             } catch (Exception e) {
                 javafx.application.Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, "Error: " + e.getMessage()).showAndWait());
             }
-        }).start();
-    }
-
-    private void fetchRepoContents(String owner, String repoName, String path) {
-        new Thread(() -> {
-            try {
-                String url = String.format("/api/v1/tools/github/repos/%s/%s/contents?path=%s", owner, repoName, java.net.URLEncoder.encode(path, "UTF-8"));
-                String resp = api.get(url);
-                Map<String, Object> data = objectMapper.readValue(resp, Map.class);
-                if ((Boolean) data.getOrDefault("success", false)) {
-                    Object obj = data.get("contents");
-                    if (obj instanceof List) {
-                        List<Map<String, Object>> contents = (List<Map<String, Object>>) obj;
-                        javafx.application.Platform.runLater(() -> {
-                            filesList.getItems().clear();
-                            filesList.getItems().addAll(contents);
-                        });
-                    }
-                }
-            } catch (Exception e) {
-                javafx.application.Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, "Failed to list contents: " + e.getMessage()).showAndWait());
-            }
-        }).start();
+        });
     }
 
-    private void loadFileContent(Map<String, Object> file) {
-        new Thread(() -> {
+    private void loadFileContent(RepoEntry file) {
+        stageEdited();
+        int opened = ++opening;
+        // Names the buffer if it has to be recovered, e.g. "owner/repo/src/app.js"
+        Map<String, Object> repo = reposList.getSelectionModel().getSelectedItem();
+        String path = file.path();
+        String label = repo != null ? repo.get("full_name") + "/" + path : path;
+        if (repo != null) Prefetcher.opened((String) repo.get("full_name"), path);
+        PieceTable staged = staging != null ? staging.get(path) : null;
+        if (staged != null) {
+            // Continue from the staged edit rather than the pushed version
+            document.load(staged.toString());
+            document.describe(null, label);
+            openPath = path;
+            openedText = document.snapshot();
+            return;
+        }
+        String downloadUrl = browser.downloadUrl(file);
+        TaskExecutor.getInstance().execute(() -> {
             try {
-                String downloadUrl = (String) file.get("download_url");
                 if (downloadUrl == null) {
-                    javafx.application.Platform.runLater(() -> editorArea.setText("(No download URL for selected item)"));
+                    javafx.application.Platform.runLater(() -> {
+                        if (opened == opening) document.load("(No download URL for selected item)");
+                    });
                     return;
                 }
-                String text = api.rawGet(downloadUrl);
-                javafx.application.Platform.runLater(() -> editorArea.setText(text));
+                String text = BlobStore.getInstance().text(file.sha(), downloadUrl);
+                javafx.application.Platform.runLater(() -> {
+                    if (opened != opening) return; // another file or repository was chosen meanwhile
+                    stageEdited();
+                    document.load(text);
+                    document.describe(null, label);
+                    openPath = path;
+                    openedText = document.snapshot();
+                });
             } catch (Exception e) {
-                javafx.application.Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, "Failed to load file: " + e.getMessage()).showAndWait());
+                javafx.application.Platform.runLater(() -> {
+                    if (opened == opening) new Alert(Alert.AlertType.ERROR, "Failed to load file: " + e.getMessage()).showAndWait();
+                });
             }
-        }).start();
+        });
     }
 }
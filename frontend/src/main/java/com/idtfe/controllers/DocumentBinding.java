@@ -0,0 +1,188 @@
+package com.idtfe.controllers;
+
+import com.idtfe.services.EditJournal;
+import com.idtfe.services.PieceTable;
+import com.idtfe.services.TextDocument;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextFormatter;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Keeps a {@link TextDocument} in step with a TextArea. Every change the
+ * area accepts is forwarded as a range replacement, so the document and its
+ * undo history see only the edited span, and Ctrl+Z / Ctrl+Y go through the
+ * document instead of the area's own full-text history. The area still
+ * renders its own copy of the text; readers that do not need the control
+ * should use {@link #snapshot()}. With a journal attached, every edit is
+ * also queued to it for crash recovery.
+ *
+ * <p>TextArea silently drops {@code \r} and other control characters from
+ * inserted text, so text is filtered the same way before the document sees
+ * it; otherwise every later offset would be off.
+ */
+final class DocumentBinding {
+    private final TextArea area;
+    private final TextDocument document = new TextDocument("");
+    private EditJournal journal;
+    private boolean applying;
+
+    DocumentBinding(TextArea area) {
+        this.area = area;
+        document.reset(area.getText());
+        area.setTextFormatter(new TextFormatter<String>(change -> {
+            if (!applying) {
+                filter(change);
+                TextDocument.Edit edit = document.replace(change.getRangeStart(), change.getRangeEnd(), change.getText());
+                record(edit);
+            }
+            return change;
+        }));
+        area.lengthProperty().addListener((obs, oldLength, newLength) -> {
+            if (!applying && newLength.intValue() != document.length()) resync();
+        });
+        area.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (!e.isShortcutDown()) return;
+            if (e.getCode() == KeyCode.Z && !e.isShiftDown()) {
+                apply(document.undo());
+                e.consume();
+            } else if (e.getCode() == KeyCode.Y || (e.getCode() == KeyCode.Z && e.isShiftDown())) {
+                apply(document.redo());
+                e.consume();
+            }
+        });
+    }
+
+    /** Replaces the text without recording an undo step, e.g. after opening a file. */
+    void load(String text) {
+        applying = true;
+        try {
+            area.setText(text);
+        } finally {
+            applying = false;
+        }
+        document.reset(area.getText());
+        if (journal != null) journal.reset(document.snapshot());
+    }
+
+    /**
+     * Shows recovered text as an unsaved change, adopting the journal it
+     * came from so it stays recoverable until saved.
+     */
+    void restore(EditJournal.Recovery recovery) throws IOException {
+        applying = true;
+        try {
+            area.setText(recovery.text());
+        } finally {
+            applying = false;
+        }
+        document.reset(area.getText());
+        EditJournal resumed = EditJournal.resume(new EditJournal.Recovery(recovery.journal(), recovery.owner(),
+            recovery.file(), recovery.label(), area.getText(), recovery.modified()));
+        if (journal != null) journal.close();
+        journal = resumed;
+    }
+
+    /** Journals every later edit; replaces and closes any previous journal. */
+    void journal(EditJournal journal) {
+        if (this.journal != null) this.journal.close();
+        this.journal = journal;
+        if (journal != null) journal.reset(document.snapshot());
+    }
+
+    /** Tells the journal which file (or remote item) the text belongs to. */
+    void describe(Path file, String label) {
+        if (journal != null) journal.describe(file, label);
+    }
+
+    boolean isJournaled() {
+        return journal != null;
+    }
+
+    /** Call after {@code text} was written out; drops the recovery journal. */
+    void saved(PieceTable text) {
+        if (journal != null) journal.saved(text);
+    }
+
+    /** Stops journaling, e.g. when the editor is closed. Unsaved edits stay recoverable. */
+    void close() {
+        if (journal != null) journal.close();
+        journal = null;
+    }
+
+    TextDocument document() {
+        return document;
+    }
+
+    /** The current text; safe to pass to a background task. */
+    PieceTable snapshot() {
+        return document.snapshot();
+    }
+
+    /** With a formatter set, the change carries the unfiltered text (e.g. pasted CRLF); filter it as the area would. */
+    private static void filter(TextFormatter.Change change) {
+        String raw = change.getText();
+        String text = editable(raw);
+        if (text == raw) return;
+        int insertedEnd = change.getRangeStart() + raw.length();
+        int dropped = raw.length() - text.length();
+        int anchor = change.getAnchor();
+        int caret = change.getCaretPosition();
+        change.setText(text);
+        // Positions are in the changed text, so move them back by what was dropped
+        change.selectRange(afterFilter(anchor, insertedEnd, dropped), afterFilter(caret, insertedEnd, dropped));
+    }
+
+    private static int afterFilter(int position, int insertedEnd, int dropped) {
+        return position >= insertedEnd ? position - dropped : Math.min(position, insertedEnd - dropped);
+    }
+
+    /** The text as TextArea stores it: without control characters other than newline and tab. */
+    static String editable(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (isDropped(text.charAt(i))) {
+                StringBuilder kept = new StringBuilder(text.length());
+                for (int j = 0; j < text.length(); j++) {
+                    if (!isDropped(text.charAt(j))) kept.append(text.charAt(j));
+                }
+                return kept.toString();
+            }
+        }
+        return text;
+    }
+
+    private static boolean isDropped(char c) {
+        return c == 0x7F || (c < 0x20 && c != '\n' && c != '\t');
+    }
+
+    /** Last resort if the area and the document ever disagree: what the user sees wins. */
+    private void resync() {
+        int stale = document.length();
+        System.err.println("Editor document out of step with the text area (" + stale + " vs " + area.getLength() + " chars); resynchronising");
+        document.reset(area.getText());
+        // Kept as an unsaved edit so it stays recoverable
+        if (journal != null) journal.edit(0, stale, area.getText(), document.snapshot());
+    }
+
+    private void record(TextDocument.Edit edit) {
+        if (journal != null) {
+            journal.edit(edit.offset(), edit.removed().length(), edit.inserted(), document.snapshot());
+        }
+    }
+
+    private void apply(TextDocument.Edit edit) {
+        if (edit == null) return;
+        int start = edit.offset();
+        applying = true;
+        try {
+            area.replaceText(start, start + edit.removed().length(), edit.inserted());
+        } finally {
+            applying = false;
+        }
+        record(edit);
+        area.positionCaret(start + edit.inserted().length());
+    }
+}
@@ -3,33 +3,121 @@ package com.idtfe.controllers;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
+import javafx.stage.FileChooser;
+import com.idtfe.services.EditJournal;
 import com.idtfe.services.EditorService;
+import com.idtfe.services.PieceTable;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.ResourceBundle;
 
 public class EditorController implements Initializable {
     @FXML private TextArea editorArea;
+    @FXML private LargeFileView largeFileView;
     @FXML private Button openButton;
     @FXML private Button saveButton;
+    @FXML private Label statusLabel;
 
     private final EditorService editorService = new EditorService();
+    private DocumentBinding document;
+    private Path currentPath;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         openButton.setOnAction(e -> openFile());
         saveButton.setOnAction(e -> saveFile());
+        document = new DocumentBinding(editorArea);
+        try {
+            document.journal(EditJournal.open("Code Editor"));
+        } catch (IOException e) {
+            statusLabel.setText("Crash recovery unavailable: " + e.getMessage());
+        }
+        // Release the mapping and the journal when the editor tab is closed
+        editorArea.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) {
+                largeFileView.close();
+                document.close();
+            }
+        });
+    }
+
+    /** Shows a document recovered from an earlier session as unsaved changes. */
+    public void restore(EditJournal.Recovery recovery) throws IOException {
+        statusLabel.textProperty().unbind();
+        largeFileView.close();
+        showLargeFileView(false);
+        document.restore(recovery);
+        currentPath = recovery.file();
+        String name = currentPath != null ? currentPath.getFileName().toString() : recovery.label();
+        statusLabel.setText("Recovered unsaved changes: " + name);
     }
 
     private void openFile() {
-        // Simple demo: load a placeholder file if available
-        String content = editorService.loadFile("README.md");
-        if (content != null) editorArea.setText(content);
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open File");
+        fileChooser.setInitialDirectory(new File(System.getProperty("user.dir")));
+        File file = fileChooser.showOpenDialog(openButton.getScene().getWindow());
+        if (file != null) open(file.toPath());
+    }
+
+    private void open(Path path) {
+        statusLabel.textProperty().unbind();
+        if (editorService.isLargeFile(path)) {
+            // Too big for a TextArea: page through a memory-mapped view instead
+            try {
+                largeFileView.open(editorService.openLargeFile(path));
+            } catch (IOException e) {
+                statusLabel.setText("Cannot open " + path.getFileName() + ": " + e.getMessage());
+                return;
+            }
+            document.load("");
+            document.describe(null, "");
+            showLargeFileView(true);
+            statusLabel.textProperty().bind(largeFileView.statusProperty());
+        } else {
+            String content = editorService.loadFile(path.toString());
+            if (content == null) {
+                statusLabel.setText("Cannot open " + path.getFileName());
+                return;
+            }
+            largeFileView.close();
+            document.load(content);
+            document.describe(path, path.toString());
+            showLargeFileView(false);
+            statusLabel.setText(path.getFileName().toString());
+        }
+        currentPath = path;
+    }
+
+    private void showLargeFileView(boolean large) {
+        largeFileView.setVisible(large);
+        editorArea.setVisible(!large);
     }
 
     private void saveFile() {
-        String content = editorArea.getText();
-        editorService.saveFile("unsaved.txt", content);
+        if (largeFileView.getFile() != null) return; // paged viewer is read-only
+        Path target = currentPath;
+        if (target == null) {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Save File");
+            File file = fileChooser.showSaveDialog(saveButton.getScene().getWindow());
+            if (file == null) return;
+            target = file.toPath();
+        }
+        try {
+            PieceTable text = document.snapshot();
+            editorService.save(target, text);
+            document.saved(text);
+            document.describe(target, target.toString());
+            currentPath = target;
+            statusLabel.setText("Saved " + target.getFileName());
+        } catch (IOException e) {
+            statusLabel.setText("Cannot save " + target.getFileName() + ": " + e.getMessage());
+        }
     }
 }
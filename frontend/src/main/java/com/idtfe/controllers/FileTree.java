@@ -0,0 +1,127 @@
+package com.idtfe.controllers;
+
+import com.idtfe.services.DirectoryWatcher;
+import com.idtfe.services.IgnoreRules;
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Owns a lazily loaded {@link FileTreeItem} hierarchy and keeps it current.
+ * Every expanded directory is registered with a {@link DirectoryWatcher};
+ * each coalesced batch of changes is re-checked against the disk off the FX
+ * thread and then merged into the existing items in one pass, so expansion
+ * and selection survive and nothing is rebuilt.
+ */
+final class FileTree implements AutoCloseable {
+    private final Path rootPath;
+    private final IgnoreRules rules;
+    private final DirectoryWatcher watcher;
+    // Expanded, loaded directories by path; FX thread only
+    private final Map<Path, FileTreeItem> watched = new HashMap<>();
+    private final FileTreeItem root;
+
+    /** Entries present on disk (path to is-directory) and removed, for one directory. */
+    private static final class Delta {
+        final Map<Path, Boolean> present = new LinkedHashMap<>();
+        final Set<Path> removed = new HashSet<>();
+        boolean rescan;
+    }
+
+    FileTree(Path rootPath, IgnoreRules rules) {
+        this.rootPath = rootPath;
+        this.rules = rules;
+        DirectoryWatcher w;
+        try {
+            w = new DirectoryWatcher(this::onChanges);
+        } catch (IOException | UnsupportedOperationException e) {
+            w = null; // no watch support: the tree still works, refresh is manual
+        }
+        this.watcher = w;
+        this.root = new FileTreeItem(rootPath, true, this);
+    }
+
+    FileTreeItem getRoot() {
+        return root;
+    }
+
+    Path getRootPath() {
+        return rootPath;
+    }
+
+    boolean isIgnored(Path entry, boolean directory) {
+        return rules.isIgnored(rootPath.relativize(entry), directory);
+    }
+
+    /** Re-lists every expanded directory and merges the result in place. */
+    void refresh() {
+        for (FileTreeItem dir : new ArrayList<>(watched.values())) {
+            dir.reload();
+        }
+        if (!watched.containsKey(rootPath)) root.reload();
+    }
+
+    @Override
+    public void close() {
+        if (watcher != null) watcher.close();
+        watched.clear();
+    }
+
+    void watch(FileTreeItem dir) {
+        watched.put(dir.getValue(), dir);
+        if (watcher != null) watcher.register(dir.getValue());
+    }
+
+    void unwatch(FileTreeItem dir) {
+        if (watched.remove(dir.getValue(), dir) && watcher != null) {
+            watcher.unregister(dir.getValue());
+        }
+    }
+
+    /** Stops watching {@code item} and every directory below it, e.g. after it was deleted. */
+    void forget(FileTreeItem item) {
+        Path gone = item.getValue();
+        for (FileTreeItem dir : new ArrayList<>(watched.values())) {
+            if (dir.getValue().startsWith(gone)) unwatch(dir);
+        }
+    }
+
+    // Watcher thread: group by parent and stat each path once, then merge on the FX thread
+    private void onChanges(List<DirectoryWatcher.Change> changes) {
+        Map<Path, Delta> byParent = new HashMap<>();
+        for (DirectoryWatcher.Change change : changes) {
+            if (change.kind() == DirectoryWatcher.Kind.OVERFLOW) {
+                byParent.computeIfAbsent(change.path(), p -> new Delta()).rescan = true;
+                continue;
+            }
+            Path path = change.path();
+            Path parent = path.getParent();
+            if (parent == null) continue;
+            Delta delta = byParent.computeIfAbsent(parent, p -> new Delta());
+            // The final state on disk is what counts, whatever the event said
+            if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                boolean dir = Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+                if (isIgnored(path, dir)) delta.removed.add(path);
+                else delta.present.put(path, dir);
+            } else {
+                delta.removed.add(path);
+            }
+        }
+        Platform.runLater(() -> byParent.forEach((parent, delta) -> {
+            FileTreeItem dir = watched.get(parent);
+            if (dir == null) return;
+            if (delta.rescan) dir.reload();
+            else dir.applyDelta(delta.present, delta.removed);
+        }));
+    }
+}
@@ -0,0 +1,190 @@
+package com.idtfe.controllers;
+
+import com.idtfe.services.ApiClient;
+import com.idtfe.services.TaskExecutor;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeCell;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+import javafx.util.Callback;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A file tree node whose children are listed on first expand, on a
+ * background thread, so opening a project only touches the directories the
+ * user actually looks at. Until the listing arrives the node shows a
+ * "Loading..." placeholder. Entries ignored by the owning {@link FileTree}
+ * are never listed. Reloads and watcher deltas are merged into the existing
+ * children, so unchanged items keep their expansion state.
+ */
+final class FileTreeItem extends TreeItem<Path> {
+    private static final Comparator<TreeItem<Path>> ORDER = Comparator
+        .comparing((TreeItem<Path> item) -> !(item instanceof FileTreeItem && ((FileTreeItem) item).directory))
+        .thenComparing(item -> item.getValue().getFileName().toString(), String.CASE_INSENSITIVE_ORDER);
+
+    private final boolean directory;
+    private final FileTree tree;
+    // Children reflect a listing (rather than a placeholder)
+    private boolean loaded;
+    // Collapsed since the last listing, so changes may have been missed
+    private boolean stale;
+    private CompletableFuture<List<FileTreeItem>> loading;
+    private boolean reloadAgain;
+
+    /** Placeholder row shown while a directory is listed or when listing fails. */
+    static final class Placeholder extends TreeItem<Path> {
+        final String text;
+
+        Placeholder(String text) {
+            this.text = text;
+        }
+    }
+
+    FileTreeItem(Path path, boolean directory, FileTree tree) {
+        super(path);
+        this.directory = directory;
+        this.tree = tree;
+        if (directory) {
+            getChildren().add(new Placeholder("Loading..."));
+            expandedProperty().addListener((obs, was, expanded) -> {
+                if (expanded) {
+                    tree.watch(this);
+                    if (loading == null && (!loaded || stale)) reload();
+                } else {
+                    tree.unwatch(this);
+                    stale = true;
+                }
+            });
+        }
+    }
+
+    /** Cell factory that shows file names and placeholder text. */
+    static Callback<TreeView<Path>, TreeCell<Path>> cellFactory() {
+        return view -> new TreeCell<>() {
+            @Override
+            protected void updateItem(Path path, boolean empty) {
+                super.updateItem(path, empty);
+                TreeItem<Path> item = getTreeItem();
+                if (empty || item == null) {
+                    setText(null);
+                } else if (item instanceof Placeholder) {
+                    setText(((Placeholder) item).text);
+                } else {
+                    Path name = path.getFileName();
+                    setText(name != null ? name.toString() : path.toString());
+                }
+            }
+        };
+    }
+
+    boolean isDirectory() {
+        return directory;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return !directory;
+    }
+
+    /** Lists the directory again in the background and merges the result. Must run on the FX thread. */
+    void reload() {
+        if (!directory) return;
+        if (loading != null) {
+            reloadAgain = true;
+            return;
+        }
+        stale = false;
+        loading = ApiClient.onFxThread(TaskExecutor.getInstance().supplyAsync(this::listChildren));
+        loading.whenComplete((kids, error) -> {
+            loading = null;
+            if (error != null) {
+                Throwable cause = ApiClient.unwrap(error);
+                if (cause instanceof UncheckedIOException) cause = cause.getCause();
+                loaded = false;
+                getChildren().setAll(List.of(new Placeholder("Cannot list: " + cause.getMessage())));
+            } else if (!loaded) {
+                loaded = true;
+                getChildren().setAll(kids);
+            } else {
+                Map<Path, Boolean> present = new HashMap<>();
+                for (FileTreeItem kid : kids) present.put(kid.getValue(), kid.directory);
+                Set<Path> removed = new HashSet<>();
+                for (TreeItem<Path> kid : getChildren()) {
+                    if (!present.containsKey(kid.getValue())) removed.add(kid.getValue());
+                }
+                applyDelta(present, removed);
+            }
+            if (reloadAgain) {
+                reloadAgain = false;
+                reload();
+            }
+        });
+    }
+
+    /**
+     * Merges entries known to exist ({@code present}, path to is-directory)
+     * and entries known to be gone. Must run on the FX thread.
+     */
+    void applyDelta(Map<Path, Boolean> present, Set<Path> removed) {
+        if (loading != null) {
+            // The listing in flight may predate these changes
+            reloadAgain = true;
+            return;
+        }
+        if (!loaded) return; // listed on first expand anyway
+
+        ObservableList<TreeItem<Path>> kids = getChildren();
+        Map<Path, TreeItem<Path>> byPath = new HashMap<>();
+        List<TreeItem<Path>> gone = new ArrayList<>();
+        for (TreeItem<Path> kid : kids) {
+            Path path = kid.getValue();
+            Boolean dir = present.get(path);
+            boolean typeChanged = dir != null && kid instanceof FileTreeItem && ((FileTreeItem) kid).directory != dir;
+            if (removed.contains(path) || typeChanged) {
+                gone.add(kid);
+                if (kid instanceof FileTreeItem && ((FileTreeItem) kid).directory) tree.forget((FileTreeItem) kid);
+            } else {
+                byPath.put(path, kid);
+            }
+        }
+        if (!gone.isEmpty()) kids.removeAll(gone);
+
+        for (Map.Entry<Path, Boolean> entry : present.entrySet()) {
+            if (byPath.containsKey(entry.getKey())) continue;
+            FileTreeItem item = new FileTreeItem(entry.getKey(), entry.getValue(), tree);
+            int at = Collections.binarySearch(kids, item, ORDER);
+            kids.add(at < 0 ? -at - 1 : at, item);
+        }
+    }
+
+    private List<FileTreeItem> listChildren() {
+        List<FileTreeItem> kids = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(getValue())) {
+            for (Path entry : entries) {
+                if (Thread.currentThread().isInterrupted()) break;
+                boolean dir = Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS);
+                if (tree.isIgnored(entry, dir)) continue;
+                kids.add(new FileTreeItem(entry, dir, tree));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        kids.sort(ORDER);
+        return kids;
+    }
+}
@@ -24,21 +24,8 @@ public class GitHubController implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
         linkButton.setOnAction(e -> linkAccount());
         // Check status
-        new Thread(() -> {
-            try {
-                String resp = ApiClient.getInstance().get("/api/v1/tools/github/status");
-                Map<String, Object> data = objectMapper.readValue(resp, Map.class);
-                javafx.application.Platform.runLater(() -> {
-                    if ((Boolean) data.getOrDefault("success", false)) {
-                        statusLabel.setText("Linked: " + data.getOrDefault("username", ""));
-                    } else {
-                        statusLabel.setText((String) data.getOrDefault("message", "Not linked"));
-                    }
-                });
-            } catch (IOException ex) {
-                javafx.application.Platform.runLater(() -> statusLabel.setText("Status check failed"));
-            }
-        }).start();
+        ApiClient.onFxThread(ApiClient.getInstance().getAsync("/api/v1/tools/github/status"))
+            .whenComplete((resp, error) -> showLinkResult(resp, error, "Not linked", "Status check failed"));
     }
 
     private void linkAccount() {
@@ -49,20 +36,24 @@ public class GitHubController implements Initializable {
         }
 
         statusLabel.setText("Linking...");
-        new Thread(() -> {
-            try {
-                String resp = ApiClient.getInstance().post("/api/v1/tools/github/link", Map.of("token", token));
-                Map<String, Object> data = objectMapper.readValue(resp, Map.class);
-                javafx.application.Platform.runLater(() -> {
-                    if ((Boolean) data.getOrDefault("success", false)) {
-                        statusLabel.setText("Linked: " + data.getOrDefault("username", ""));
-                    } else {
-                        statusLabel.setText((String) data.getOrDefault("message", "Link failed"));
-                    }
-                });
-            } catch (IOException ex) {
-                javafx.application.Platform.runLater(() -> statusLabel.setText("Link request failed"));
+        ApiClient.onFxThread(ApiClient.getInstance().postAsync("/api/v1/tools/github/link", Map.of("token", token)))
+            .whenComplete((resp, error) -> showLinkResult(resp, error, "Link failed", "Link request failed"));
+    }
+
+    private void showLinkResult(String resp, Throwable error, String defaultMessage, String failureMessage) {
+        if (error != null) {
+            statusLabel.setText(failureMessage);
+            return;
+        }
+        try {
+            Map<String, Object> data = objectMapper.readValue(resp, Map.class);
+            if ((Boolean) data.getOrDefault("success", false)) {
+                statusLabel.setText("Linked: " + data.getOrDefault("username", ""));
+            } else {
+                statusLabel.setText((String) data.getOrDefault("message", defaultMessage));
             }
-        }).start();
+        } catch (IOException ex) {
+            statusLabel.setText(failureMessage);
+        }
     }
 }
@@ -0,0 +1,163 @@
+package com.idtfe.controllers;
+
+import com.idtfe.services.LargeFile;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.util.Duration;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only paged viewer for a {@link LargeFile}. Like the terminal view,
+ * the items are a live window over the file: rows are decoded a page at a
+ * time when cells ask for them, and a small page cache keeps scrolling
+ * smooth. The row count grows while the file's lines are still being
+ * indexed.
+ */
+public class LargeFileView extends ListView<String> {
+    private static final int PAGE_LINES = 512;
+    private static final int CACHED_PAGES = 64;
+
+    private final FileLines lines = new FileLines();
+    private final ReadOnlyStringWrapper status = new ReadOnlyStringWrapper("");
+    private final Timeline progress = new Timeline(new KeyFrame(Duration.millis(250), e -> publishLines()));
+    private final Map<Long, List<String>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<String>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+    private LargeFile file;
+    private int shownLines;
+
+    public LargeFileView() {
+        setItems(lines);
+        setFixedCellSize(18);
+        setStyle("-fx-font-family: 'Consolas', 'Monaco', monospace;");
+        getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        setCellFactory(view -> new ListCell<>() {
+            @Override
+            protected void updateItem(String text, boolean empty) {
+                super.updateItem(text, empty);
+                setText(empty || text == null ? null : String.format("%7d  %s", getIndex() + 1, text));
+            }
+        });
+        setOnKeyPressed(e -> {
+            if (e.isShortcutDown() && e.getCode() == KeyCode.C) copySelection();
+        });
+        progress.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    /** Shows {@code file}, closing the one shown before. */
+    public void open(LargeFile file) {
+        close();
+        this.file = file;
+        publishLines();
+        if (!file.isIndexed()) progress.play();
+        scrollTo(0);
+    }
+
+    /** Closes the current file and empties the view. */
+    public void close() {
+        progress.stop();
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+        pages.clear();
+        publishLines();
+    }
+
+    public LargeFile getFile() {
+        return file;
+    }
+
+    public ReadOnlyStringProperty statusProperty() {
+        return status.getReadOnlyProperty();
+    }
+
+    /** Selects and reveals a 1-based line number. */
+    public void goToLine(long line) {
+        int row = (int) Math.min(Math.max(0, line - 1), Math.max(0, shownLines - 1));
+        getSelectionModel().clearAndSelect(row);
+        scrollTo(Math.max(0, row - 3));
+    }
+
+    private void publishLines() {
+        long count = file == null ? 0 : file.lineCount();
+        int now = (int) Math.min(Integer.MAX_VALUE, count);
+        lines.resize(now);
+        if (file == null) {
+            status.set("");
+            return;
+        }
+        String size = String.format("%.1f MB", file.getSize() / (1024.0 * 1024.0));
+        if (file.isIndexed()) {
+            progress.stop();
+            status.set(String.format("%s - %,d lines (read-only)", size, count));
+        } else {
+            status.set(String.format("%s - indexing lines... %,d so far", size, count));
+        }
+    }
+
+    private String lineAt(int index) {
+        long page = index / PAGE_LINES;
+        List<String> rows = pages.get(page);
+        if (rows == null || index - page * PAGE_LINES >= rows.size()) {
+            // Missing, or a partial last page cached while indexing
+            rows = file.lines(page * PAGE_LINES, PAGE_LINES);
+            pages.put(page, rows);
+        }
+        int at = (int) (index - page * PAGE_LINES);
+        return at < rows.size() ? rows.get(at) : "";
+    }
+
+    private void copySelection() {
+        StringBuilder text = new StringBuilder();
+        for (String line : getSelectionModel().getSelectedItems()) {
+            text.append(line).append('\n');
+        }
+        ClipboardContent content = new ClipboardContent();
+        content.putString(text.toString());
+        Clipboard.getSystemClipboard().setContent(content);
+    }
+
+    private final class FileLines extends ObservableListBase<String> {
+        @Override
+        public String get(int index) {
+            return file == null ? "" : lineAt(index);
+        }
+
+        @Override
+        public int size() {
+            return shownLines;
+        }
+
+        void resize(int count) {
+            int old = shownLines;
+            if (count == old) return;
+            beginChange();
+            if (count > old) {
+                shownLines = count;
+                nextAdd(old, count);
+            } else {
+                // Closed or replaced: old rows go away
+                shownLines = count;
+                nextRemove(count, Collections.nCopies(old - count, ""));
+            }
+            endChange();
+        }
+    }
+}
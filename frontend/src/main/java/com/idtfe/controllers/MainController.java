@@ -12,6 +12,8 @@ import javafx.scene.layout.BorderPane;
 import javafx.application.Platform;
 import javafx.stage.Stage;
 import com.idtfe.services.ApiClient;
+import com.idtfe.services.EditJournal;
+import com.idtfe.services.TaskExecutor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
@@ -62,6 +64,7 @@ public class MainController implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
         setupMenuActions();
         loadModules();
+        offerRecovery();
         statusLabel.setText("Ready");
         // Start datetime updater
         try {
@@ -134,7 +137,7 @@ public class MainController implements Initializable {
     }
     
     private void loadModules() {
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 String response = ApiClient.getInstance().get("/api/v1/meta");
                 Map<String, Object> metadata = objectMapper.readValue(response, Map.class);
@@ -168,7 +171,7 @@ public class MainController implements Initializable {
                 javafx.application.Platform.runLater(() -> 
                     statusLabel.setText("Failed to load modules: " + e.getMessage()));
             }
-        }).start();
+        });
     }
     
     private void openModule(String moduleId, String moduleName) {
@@ -210,6 +213,53 @@ public class MainController implements Initializable {
         }
     }
     
+    /** Looks for documents left unsaved by an earlier run and offers to reopen them. */
+    private void offerRecovery() {
+        TaskExecutor.getInstance().execute(() -> {
+            List<EditJournal.Recovery> found;
+            try {
+                found = EditJournal.pending();
+            } catch (IOException e) {
+                return;
+            }
+            if (found.isEmpty()) return;
+            javafx.application.Platform.runLater(() -> {
+                StringBuilder names = new StringBuilder();
+                for (EditJournal.Recovery recovery : found) {
+                    names.append("\n  ").append(recovery.owner()).append(": ")
+                        .append(recovery.label().isEmpty() ? "(untitled)" : recovery.label());
+                }
+                ButtonType restore = new ButtonType("Restore");
+                ButtonType discard = new ButtonType("Discard");
+                ButtonType later = new ButtonType("Later", ButtonBar.ButtonData.CANCEL_CLOSE);
+                Alert alert = new Alert(Alert.AlertType.CONFIRMATION,
+                    "These documents had unsaved changes when the app last closed:" + names, restore, discard, later);
+                alert.setTitle("Recover Unsaved Changes");
+                alert.setHeaderText(found.size() == 1 ? "1 unsaved document" : found.size() + " unsaved documents");
+                ButtonType choice = alert.showAndWait().orElse(later);
+                if (choice == restore) {
+                    found.forEach(this::openRecovered);
+                } else if (choice == discard) {
+                    found.forEach(EditJournal::discard);
+                }
+            });
+        });
+    }
+
+    private void openRecovered(EditJournal.Recovery recovery) {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/code-editor.fxml"));
+            Tab tab = new Tab("Recovered: " + (recovery.file() != null ? recovery.file().getFileName() : recovery.label()));
+            tab.setContent(loader.load());
+            EditorController editor = loader.getController();
+            editor.restore(recovery);
+            contentTabs.getTabs().add(tab);
+            contentTabs.getSelectionModel().select(tab);
+        } catch (IOException e) {
+            statusLabel.setText("Failed to restore " + recovery.label() + ": " + e.getMessage());
+        }
+    }
+
     private void showHelp() {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle("I.D.T.F.E Help");
@@ -246,7 +296,7 @@ public class MainController implements Initializable {
     
     private void openGitHub() {
         // Prefer opening the user's linked GitHub account if available
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 String resp = ApiClient.getInstance().get("/api/v1/tools/github/status");
                 Map<String, Object> data = objectMapper.readValue(resp, Map.class);
@@ -278,7 +328,7 @@ public class MainController implements Initializable {
             } catch (Exception e) {
                 javafx.application.Platform.runLater(() -> statusLabel.setText("Could not open GitHub link"));
             }
-        }).start();
+        });
     }
     
     private void showAbout() {
@@ -0,0 +1,92 @@
+package com.idtfe.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.concurrent.Worker;
+import javafx.scene.web.WebEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a WebView document in sync with a list of rendered HTML blocks.
+ * The page shell is loaded once; after that only the range of blocks that
+ * differs from what is displayed is replaced through executeScript, so the
+ * preview keeps its scroll position and WebView does not re-parse the page.
+ */
+final class PreviewDomPatcher {
+    private static final String PATCH_SCRIPT =
+        "function idtfePatch(start, removeCount, blocks) {" +
+        "  var root = document.getElementById('md-root');" +
+        "  for (var i = 0; i < removeCount && root.children[start]; i++) root.removeChild(root.children[start]);" +
+        "  var ref = root.children[start] || null;" +
+        "  for (var j = 0; j < blocks.length; j++) {" +
+        "    var node = document.createElement('div');" +
+        "    node.className = 'md-block';" +
+        "    node.innerHTML = blocks[j];" +
+        "    root.insertBefore(node, ref);" +
+        "  }" +
+        "}";
+
+    private final WebEngine engine;
+    private final String css;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Blocks currently in the DOM, index-aligned with the children of #md-root
+    private List<String> displayed = new ArrayList<>();
+    private boolean shellLoaded;
+
+    PreviewDomPatcher(WebEngine engine, String css) {
+        this.engine = engine;
+        this.css = css;
+    }
+
+    /** Brings the document in line with {@code blocks}; returns how many blocks were written. */
+    int update(List<String> blocks) {
+        if (!shellLoaded || engine.getLoadWorker().getState() != Worker.State.SUCCEEDED) {
+            loadShell(blocks);
+            return blocks.size();
+        }
+
+        int common = Math.min(displayed.size(), blocks.size());
+        int prefix = 0;
+        while (prefix < common && displayed.get(prefix).equals(blocks.get(prefix))) prefix++;
+        int suffix = 0;
+        while (suffix < common - prefix
+            && displayed.get(displayed.size() - 1 - suffix).equals(blocks.get(blocks.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        int removed = displayed.size() - prefix - suffix;
+        List<String> inserted = blocks.subList(prefix, blocks.size() - suffix);
+        if (removed == 0 && inserted.isEmpty()) return 0;
+
+        try {
+            engine.executeScript("idtfePatch(" + prefix + "," + removed + "," + objectMapper.writeValueAsString(inserted) + ")");
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Script bridge unavailable (e.g. page replaced); fall back to a full load
+            loadShell(blocks);
+            return blocks.size();
+        }
+        displayed = new ArrayList<>(blocks);
+        return inserted.size();
+    }
+
+    /** Forgets the current DOM so the next update reloads the shell. */
+    void reset() {
+        displayed = new ArrayList<>();
+        shellLoaded = false;
+        engine.loadContent("");
+    }
+
+    private void loadShell(List<String> blocks) {
+        StringBuilder html = new StringBuilder("<html><head><style>").append(css)
+            .append("</style><script>").append(PATCH_SCRIPT).append("</script></head><body><div id=\"md-root\">");
+        for (String block : blocks) {
+            html.append("<div class=\"md-block\">").append(block).append("</div>");
+        }
+        html.append("</div></body></html>");
+        engine.loadContent(html.toString());
+        displayed = new ArrayList<>(blocks);
+        shellLoaded = true;
+    }
+}
@@ -1,50 +1,57 @@
 package com.idtfe.controllers;
 
+import com.idtfe.services.IgnoreRules;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
 
-import java.io.File;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.ResourceBundle;
 
 public class ProjectExplorerController implements Initializable {
-    @FXML private TreeView<String> projectTree;
+    @FXML private TreeView<Path> projectTree;
     @FXML private Button refreshBtn;
     @FXML private Button openBtn;
 
+    private FileTree fileTree;
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        projectTree.setCellFactory(FileTreeItem.cellFactory());
         refreshBtn.setOnAction(e -> refreshTree());
         openBtn.setOnAction(e -> openSelected());
+        // Stop watching once the explorer tab is closed
+        projectTree.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null && fileTree != null) {
+                fileTree.close();
+                fileTree = null;
+            } else if (newScene != null && fileTree == null) {
+                refreshTree();
+            }
+        });
         refreshTree();
     }
 
     private void refreshTree() {
-        File cwd = new File(System.getProperty("user.dir"));
-        TreeItem<String> root = buildTree(cwd);
-        projectTree.setRoot(root);
-        root.setExpanded(true);
-    }
-
-    private TreeItem<String> buildTree(File file) {
-        TreeItem<String> node = new TreeItem<>(file.getName());
-        if (file.isDirectory()) {
-            File[] kids = file.listFiles();
-            if (kids != null) {
-                for (File k : kids) {
-                    node.getChildren().add(buildTree(k));
-                }
-            }
+        Path cwd = Path.of(System.getProperty("user.dir")).toAbsolutePath();
+        if (fileTree != null && fileTree.getRootPath().equals(cwd)) {
+            // Re-list expanded directories in place; the watcher normally keeps them current
+            fileTree.refresh();
+            return;
         }
-        return node;
+        if (fileTree != null) fileTree.close();
+        // Only the root is listed here; subdirectories load when expanded
+        fileTree = new FileTree(cwd, IgnoreRules.forProject(cwd));
+        projectTree.setRoot(fileTree.getRoot());
+        fileTree.getRoot().setExpanded(true);
     }
 
     private void openSelected() {
-        TreeItem<String> sel = projectTree.getSelectionModel().getSelectedItem();
-        if (sel != null) {
+        TreeItem<Path> sel = projectTree.getSelectionModel().getSelectedItem();
+        if (sel instanceof FileTreeItem) {
             // For now show selection in console / future: open in editor
             System.out.println("Selected: " + sel.getValue());
         }
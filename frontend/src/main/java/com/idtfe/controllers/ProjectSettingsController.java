@@ -1,6 +1,10 @@
 package com.idtfe.controllers;
 
 import com.idtfe.services.ApiClient;
+import com.idtfe.services.BlobStore;
+import com.idtfe.services.Prefetcher;
+import com.idtfe.services.RepoEntry;
+import com.idtfe.services.TaskExecutor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -20,12 +24,14 @@ public class ProjectSettingsController implements Initializable {
     @FXML private Button signInBtn;
     @FXML private Button syncReposBtn;
     @FXML private ListView<Map<String, Object>> reposList;
-    @FXML private ListView<Map<String, Object>> filesList;
+    @FXML private TreeView<RepoEntry> filesTree;
     @FXML private Button openFileBtn;
     @FXML private Button setProjectRepoBtn;
     @FXML private TextArea fileContentArea;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Prefetcher prefetcher = new Prefetcher();
+    private RepoBrowser browser;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -44,38 +50,32 @@ public class ProjectSettingsController implements Initializable {
             }
         });
 
-        filesList.setCellFactory(lv -> new ListCell<>() {
-            @Override
-            protected void updateItem(Map<String, Object> item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) setText(null);
-                else setText((String) item.getOrDefault("path", item.get("name")));
-            }
+        browser = new RepoBrowser(filesTree);
+        browser.setOnOpen(file -> openSelectedFile());
+        filesTree.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) prefetcher.cancel();
         });
 
         reposList.getSelectionModel().selectedItemProperty().addListener((obs, oldV, newV) -> {
-            filesList.getItems().clear();
+            browser.clear();
             fileContentArea.clear();
+            prefetcher.cancel();
             if (newV != null) {
-                // auto-load root contents for selected repo
+                // auto-load root contents for selected repo; directories load as they are expanded
                 String fullName = (String) newV.get("full_name");
-                String[] parts = fullName.split("/");
-                if (parts.length == 2) {
-                    fetchRepoContents(parts[0], parts[1], "");
+                if (fullName.split("/").length == 2) {
+                    browser.show(fullName, prefetcher.start(fullName, (String) newV.getOrDefault("default_branch", "HEAD")));
                 }
             }
         });
 
         openFileBtn.setOnAction(e -> openSelectedFile());
-        filesList.setOnMouseClicked(e -> {
-            if (e.getClickCount() == 2) openSelectedFile();
-        });
 
         setProjectRepoBtn.setOnAction(e -> setAsProjectRepo());
     }
 
     private void signIn() {
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 String authUrl = ApiClient.getInstance().getBaseUrl() + "/auth/github/login";
                 if (Desktop.isDesktopSupported()) {
@@ -112,36 +112,11 @@ public class ProjectSettingsController implements Initializable {
             } catch (InterruptedException e) {
                 // ignore
             }
-        }).start();
-    }
-
-    private void fetchRepoContents(String owner, String repoName, String path) {
-        new Thread(() -> {
-            try {
-                String url = String.format("/api/v1/tools/github/repos/%s/%s/contents?path=%s", owner, repoName, java.net.URLEncoder.encode(path, "UTF-8"));
-                String resp = ApiClient.getInstance().get(url);
-                Map<String, Object> data = objectMapper.readValue(resp, Map.class);
-                if ((Boolean) data.getOrDefault("success", false)) {
-                    Object contentsObj = data.get("contents");
-                    if (contentsObj instanceof List) {
-                        List<Map<String, Object>> contents = (List<Map<String, Object>>) contentsObj;
-                        javafx.application.Platform.runLater(() -> {
-                            filesList.getItems().clear();
-                            filesList.getItems().addAll(contents);
-                        });
-                    }
-                }
-            } catch (Exception ex) {
-                javafx.application.Platform.runLater(() -> {
-                    Alert a = new Alert(Alert.AlertType.ERROR, "Failed to list files: " + ex.getMessage());
-                    a.showAndWait();
-                });
-            }
-        }).start();
+        });
     }
 
     private void checkStatus() {
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 String resp = ApiClient.getInstance().get("/api/v1/tools/github/status");
                 Map<String, Object> data = objectMapper.readValue(resp, Map.class);
@@ -165,11 +140,11 @@ public class ProjectSettingsController implements Initializable {
                     a.showAndWait();
                 });
             }
-        }).start();
+        });
     }
 
     private void syncRepos() {
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 String resp = ApiClient.getInstance().get("/api/v1/tools/github/repos");
                 Map<String, Object> data = objectMapper.readValue(resp, Map.class);
@@ -191,66 +166,28 @@ public class ProjectSettingsController implements Initializable {
                     a.showAndWait();
                 });
             }
-        }).start();
+        });
     }
 
     private void openSelectedFile() {
         Map<String, Object> repo = reposList.getSelectionModel().getSelectedItem();
-        Map<String, Object> file = filesList.getSelectionModel().getSelectedItem();
-        if (repo == null || file == null) return;
-        String fullName = (String) repo.get("full_name");
-        String[] parts = fullName.split("/");
-        if (parts.length != 2) return;
-        String owner = parts[0];
-        String repoName = parts[1];
-        String path = (String) file.get("path");
+        RepoEntry file = browser.selected();
+        if (repo == null || file == null || file.kind() != RepoEntry.Kind.FILE) return;
+        String downloadUrl = browser.downloadUrl(file);
+        if (downloadUrl == null) return;
+        Prefetcher.opened((String) repo.get("full_name"), file.path());
 
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
-                String url = String.format("/api/v1/tools/github/repos/%s/%s/contents?path=%s", owner, repoName, java.net.URLEncoder.encode(path, "UTF-8"));
-                String resp = ApiClient.getInstance().get(url);
-                Map<String, Object> data = objectMapper.readValue(resp, Map.class);
-                if ((Boolean) data.getOrDefault("success", false)) {
-                    List<Map<String, Object>> contents = (List<Map<String, Object>>) data.get("contents");
-                    // If the selected item is a file, GitHub returns an object; handle both
-                    if (contents != null && !contents.isEmpty()) {
-                        Map<String, Object> item = contents.get(0);
-                        String type = (String) item.get("type");
-                        if ("file".equals(type)) {
-                            String downloadUrl = (String) item.get("download_url");
-                            String fileText = ApiClient.getInstance().rawGet(downloadUrl);
-                            javafx.application.Platform.runLater(() -> fileContentArea.setText(fileText));
-                        } else {
-                            javafx.application.Platform.runLater(() -> {
-                                filesList.getItems().clear();
-                                filesList.getItems().addAll(contents);
-                            });
-                        }
-                    } else {
-                        // If response contained a single object
-                        Object contentsObj = data.get("contents");
-                        if (contentsObj instanceof Map) {
-                            Map<String, Object> item = (Map<String, Object>) contentsObj;
-                            if ("file".equals(item.get("type"))) {
-                                String downloadUrl = (String) item.get("download_url");
-                                String fileText = ApiClient.getInstance().rawGet(downloadUrl);
-                                javafx.application.Platform.runLater(() -> fileContentArea.setText(fileText));
-                            }
-                        }
-                    }
-                } else {
-                    javafx.application.Platform.runLater(() -> {
-                        Alert a = new Alert(Alert.AlertType.ERROR, "Failed to fetch file: " + data.get("message"));
-                        a.showAndWait();
-                    });
-                }
+                String fileText = BlobStore.getInstance().text(file.sha(), downloadUrl);
+                javafx.application.Platform.runLater(() -> fileContentArea.setText(fileText));
             } catch (Exception ex) {
                 javafx.application.Platform.runLater(() -> {
                     Alert a = new Alert(Alert.AlertType.ERROR, "Failed to fetch file: " + ex.getMessage());
                     a.showAndWait();
                 });
             }
-        }).start();
+        });
     }
 
     private void setAsProjectRepo() {
@@ -263,7 +200,7 @@ public class ProjectSettingsController implements Initializable {
             return;
         }
         String fullName = (String) repo.get("full_name");
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 var payload = Map.of("full_name", fullName);
                 String resp = ApiClient.getInstance().post("/api/v1/tools/github/set-project-repo", payload);
@@ -285,6 +222,6 @@ public class ProjectSettingsController implements Initializable {
                     a.showAndWait();
                 });
             }
-        }).start();
+        });
     }
 }
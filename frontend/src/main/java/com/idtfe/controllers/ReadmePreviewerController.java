@@ -1,34 +1,68 @@
 package com.idtfe.controllers;
 
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.web.WebView;
 import javafx.stage.FileChooser;
+import javafx.util.Duration;
 import com.idtfe.services.ApiClient;
+import com.idtfe.services.MarkdownRenderer;
+import com.idtfe.services.TaskExecutor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class ReadmePreviewerController implements Initializable {
     
     @FXML private Button loadFileButton;
+    @FXML private ComboBox<String> renderModeCombo;
     @FXML private TextArea markdownArea;
     @FXML private WebView previewWebView;
     @FXML private Label statusLabel;
     
+    // Quiet window after the last keystroke before a render is requested
+    private static final Duration RENDER_DEBOUNCE = Duration.millis(Integer.getInteger("idtfe.preview.debounceMs", 300));
+    private static final String MODE_LOCAL = "Local";
+    private static final String MODE_BACKEND = "Backend";
+    private static final String PREVIEW_CSS =
+        "body { font-family: Arial, sans-serif; margin: 20px; }" +
+        "code { background-color: #f4f4f4; padding: 2px 4px; border-radius: 3px; }" +
+        "pre { background-color: #f4f4f4; padding: 10px; border-radius: 5px; overflow-x: auto; }" +
+        "table { border-collapse: collapse; } th, td { border: 1px solid #ddd; padding: 4px 8px; }";
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MarkdownRenderer markdownRenderer = new MarkdownRenderer();
+    private final PauseTransition renderDebounce = new PauseTransition(RENDER_DEBOUNCE);
+    // Both only touched on the FX thread
+    private long renderSequence;
+    private CompletableFuture<List<String>> inFlightRender;
+    private PreviewDomPatcher previewPatcher;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         loadFileButton.setOnAction(e -> loadMarkdownFile());
-        markdownArea.textProperty().addListener((obs, oldText, newText) -> renderPreview());
+        previewPatcher = new PreviewDomPatcher(previewWebView.getEngine(), PREVIEW_CSS);
+        renderModeCombo.getItems().addAll(MODE_LOCAL, MODE_BACKEND);
+        renderModeCombo.setValue(MODE_LOCAL);
+        renderModeCombo.valueProperty().addListener((obs, oldMode, newMode) -> {
+            previewPatcher.reset();
+            renderPreview();
+        });
+        renderDebounce.setOnFinished(e -> renderPreview());
+        markdownArea.textProperty().addListener((obs, oldText, newText) -> renderDebounce.playFromStart());
     }
     
     private void loadMarkdownFile() {
@@ -51,35 +85,71 @@ public class ReadmePreviewerController implements Initializable {
     }
     
     private void renderPreview() {
+        long sequence = ++renderSequence;
+        if (inFlightRender != null) {
+            inFlightRender.cancel(true);
+            inFlightRender = null;
+        }
+        
         String markdown = markdownArea.getText();
         if (markdown.trim().isEmpty()) {
-            previewWebView.getEngine().loadContent("");
+            previewPatcher.update(List.of());
             return;
         }
         
-        new Thread(() -> {
+        boolean local = MODE_LOCAL.equals(renderModeCombo.getValue());
+        long startedAt = System.nanoTime();
+        
+        inFlightRender = ApiClient.onFxThread(local ? renderLocally(markdown) : renderOnBackend(markdown));
+        inFlightRender.whenComplete((blocks, error) -> {
+            // A newer edit has been rendered or is in flight; drop this result
+            if (sequence != renderSequence) return;
+            inFlightRender = null;
+            
+            if (error != null) {
+                if (!(error instanceof CancellationException)) {
+                    statusLabel.setText("Preview error: " + ApiClient.unwrap(error).getMessage());
+                }
+                return;
+            }
+            int patched = previewPatcher.update(blocks);
+            long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+            if (local) {
+                statusLabel.setText("Rendered locally in " + elapsedMs + " ms (" + markdownRenderer.getLastReusedCount()
+                    + "/" + markdownRenderer.getLastBlockCount() + " blocks cached, " + patched + " patched)");
+            } else {
+                statusLabel.setText("Rendered in " + elapsedMs + " ms");
+            }
+        });
+    }
+    
+    private CompletableFuture<List<String>> renderLocally(String markdown) {
+        return TaskExecutor.getInstance().supplyAsync(() -> {
+            List<String> fragments = new ArrayList<>();
+            for (MarkdownRenderer.Block block : markdownRenderer.renderBlocks(markdown)) {
+                fragments.add(block.html());
+            }
+            return fragments;
+        });
+    }
+    
+    // The backend returns one HTML document, so it is patched in as a single block
+    private CompletableFuture<List<String>> renderOnBackend(String markdown) {
+        Map<String, String> requestData = new HashMap<>();
+        requestData.put("content", markdown);
+        
+        CompletableFuture<String> request = ApiClient.getInstance().postAsync("/api/v1/tools/markdown/render", requestData);
+        CompletableFuture<List<String>> html = request.thenApply(response -> {
             try {
-                Map<String, String> requestData = new HashMap<>();
-                requestData.put("content", markdown);
-                
-                String response = ApiClient.getInstance().post("/api/v1/tools/markdown/render", requestData);
                 Map<String, Object> result = objectMapper.readValue(response, Map.class);
-                String html = (String) result.get("html");
-                
-                javafx.application.Platform.runLater(() -> {
-                    String styledHtml = "<html><head><style>" +
-                        "body { font-family: Arial, sans-serif; margin: 20px; }" +
-                        "code { background-color: #f4f4f4; padding: 2px 4px; border-radius: 3px; }" +
-                        "pre { background-color: #f4f4f4; padding: 10px; border-radius: 5px; overflow-x: auto; }" +
-                        "</style></head><body>" + html + "</body></html>";
-                    
-                    previewWebView.getEngine().loadContent(styledHtml);
-                });
-                
-            } catch (Exception e) {
-                javafx.application.Platform.runLater(() -> 
-                    statusLabel.setText("Preview error: " + e.getMessage()));
+                return List.of(String.valueOf(result.get("html")));
+            } catch (IOException e) {
+                throw new CompletionException(e);
             }
-        }).start();
+        });
+        html.whenComplete((value, error) -> {
+            if (html.isCancelled()) request.cancel(true);
+        });
+        return html;
     }
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+package com.idtfe.controllers;
+
+import com.idtfe.services.ApiClient;
+import com.idtfe.services.RepoEntry;
+import com.idtfe.services.RepoTree;
+import com.idtfe.services.TaskExecutor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.scene.control.TreeCell;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+import javafx.scene.input.KeyCode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Shows a GitHub repository in a {@link TreeView} whose directories load
+ * their children when first expanded: from the repository's
+ * {@link RepoTree} once it has arrived, otherwise (or for repositories the
+ * trees API cannot read) from the backend's contents listing of that one
+ * directory, showing "Loading..." until it arrives. Only expanded
+ * directories have tree items and TreeView only creates cells for the
+ * visible rows, so repositories with 100k+ entries stay responsive. Call
+ * from the FX thread.
+ */
+final class RepoBrowser {
+    private final TreeView<RepoEntry> view;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Download URLs from contents listings, by path; tree entries compute theirs
+    private final Map<String, String> listedUrls = new ConcurrentHashMap<>();
+    // Files changed since they were listed; their listed SHAs are dropped
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+    private String fullName;
+    private RepoTree tree;
+    private int generation; // bumped per repository so late listings of the previous one are dropped
+    private Consumer<RepoEntry> onOpen = entry -> { };
+
+    RepoBrowser(TreeView<RepoEntry> view) {
+        this.view = view;
+        view.setShowRoot(false);
+        view.setCellFactory(tv -> new TreeCell<>() {
+            @Override
+            protected void updateItem(RepoEntry entry, boolean empty) {
+                super.updateItem(entry, empty);
+                if (empty || getTreeItem() == null) setText(null);
+                else if (getTreeItem() instanceof Placeholder placeholder) setText(placeholder.text);
+                else setText(entry.isDirectory() ? entry.name() + "/" : entry.name());
+            }
+        });
+        view.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) openSelected();
+        });
+        view.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) openSelected();
+        });
+    }
+
+    /** Called with a file entry when it is double-clicked or Enter is pressed on it. */
+    void setOnOpen(Consumer<RepoEntry> onOpen) {
+        this.onOpen = onOpen;
+    }
+
+    /**
+     * Shows the root of {@code fullName} ("owner/repo"). Directories are
+     * listed one request at a time until {@code treeFuture}, if given,
+     * delivers the whole tree.
+     */
+    void show(String fullName, CompletableFuture<RepoTree> treeFuture) {
+        clear();
+        this.fullName = fullName;
+        int shown = generation;
+        DirectoryItem root = new DirectoryItem(new RepoEntry("", RepoEntry.Kind.DIR, -1, null));
+        view.setRoot(root);
+        root.setExpanded(true);
+        if (treeFuture != null) {
+            // Index the tree by directory on the thread that fetched it, not on the FX thread
+            ApiClient.onFxThread(treeFuture.thenApply(fetched -> {
+                fetched.children("");
+                return fetched;
+            })).whenComplete((loaded, error) -> {
+                if (loaded != null && shown == generation) tree = loaded;
+            });
+        }
+    }
+
+    void clear() {
+        generation++;
+        fullName = null;
+        tree = null;
+        listedUrls.clear();
+        changed.clear();
+        view.setRoot(null);
+    }
+
+    /** The selected entry, or null. */
+    RepoEntry selected() {
+        TreeItem<RepoEntry> item = view.getSelectionModel().getSelectedItem();
+        return item == null ? null : item.getValue();
+    }
+
+    /** Where the file's contents can be downloaded, or null if neither a listing nor the tree knows. */
+    String downloadUrl(RepoEntry entry) {
+        String listed = listedUrls.get(entry.path());
+        return listed != null || tree == null ? listed : tree.downloadUrl(entry);
+    }
+
+    /** Forgets the blob SHA of a file that was just changed, so opening it downloads it again. */
+    void changed(String path) {
+        changed.add(path);
+        // Update the item if its directory is already loaded; items created later are built without the SHA
+        TreeItem<RepoEntry> item = view.getRoot();
+        for (String segment : path.split("/")) {
+            if (!(item instanceof DirectoryItem directory) || !directory.loaded) return;
+            item = directory.getChildren().stream()
+                .filter(child -> child.getValue().name().equals(segment))
+                .findFirst().orElse(null);
+        }
+        if (item != null) item.setValue(unlisted(item.getValue()));
+    }
+
+    private RepoEntry unlisted(RepoEntry entry) {
+        return changed.contains(entry.path()) ? new RepoEntry(entry.path(), entry.kind(), -1, null) : entry;
+    }
+
+    private void openSelected() {
+        RepoEntry entry = selected();
+        if (entry != null && !entry.isDirectory()) onOpen.accept(entry);
+    }
+
+    /**
+     * Fills {@code item} with the children of its directory. A failed
+     * listing shows its error in place of the children and is retried the
+     * next time the directory is expanded.
+     */
+    private void load(DirectoryItem item) {
+        String dir = item.getValue().path();
+        if (tree != null) {
+            List<RepoEntry> children = tree.children(dir);
+            // git has no empty directories: none listed means the tree was truncated before reaching it
+            if (!children.isEmpty() || !tree.isTruncated()) {
+                item.loaded = true;
+                item.getChildren().setAll(items(children));
+                return;
+            }
+        }
+        String repo = fullName;
+        int shown = generation;
+        item.loading = true;
+        ApiClient.onFxThread(TaskExecutor.getInstance().supplyAsync(() -> list(repo, dir))).whenComplete((items, error) -> {
+            item.loading = false;
+            if (shown != generation) return;
+            if (error != null) {
+                Throwable cause = ApiClient.unwrap(error);
+                if (cause instanceof UncheckedIOException) cause = cause.getCause();
+                item.getChildren().setAll(List.of(new Placeholder("Cannot list: " + cause.getMessage())));
+            } else {
+                item.loaded = true;
+                item.getChildren().setAll(items);
+            }
+        });
+    }
+
+    /** Items for the backend's contents listing of {@code dir}. Runs on a worker thread. */
+    private List<TreeItem<RepoEntry>> list(String repo, String dir) {
+        try {
+            String url = String.format("/api/v1/tools/github/repos/%s/contents?path=%s", repo, URLEncoder.encode(dir, StandardCharsets.UTF_8));
+            Map<String, Object> data = objectMapper.readValue(ApiClient.getInstance().get(url), Map.class);
+            if (!(Boolean) data.getOrDefault("success", false)) throw new IOException(String.valueOf(data.get("message")));
+            if (!(data.get("contents") instanceof List<?> contents)) throw new IOException("Not a directory");
+            List<RepoEntry> children = new ArrayList<>(contents.size());
+            for (Object listed : contents) {
+                if (!(listed instanceof Map<?, ?> map)) continue;
+                RepoEntry entry = RepoEntry.fromContents(map);
+                if (map.get("download_url") instanceof String download) listedUrls.put(entry.path(), download);
+                children.add(entry);
+            }
+            children.sort(RepoEntry.ORDER);
+            return items(children);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<TreeItem<RepoEntry>> items(List<RepoEntry> entries) {
+        List<TreeItem<RepoEntry>> items = new ArrayList<>(entries.size());
+        for (RepoEntry entry : entries) items.add(entry.isDirectory() ? new DirectoryItem(entry) : new TreeItem<>(unlisted(entry)));
+        return items;
+    }
+
+    /** Placeholder row shown while a directory is listed or when listing fails. */
+    private static final class Placeholder extends TreeItem<RepoEntry> {
+        final String text;
+
+        Placeholder(String text) {
+            this.text = text;
+        }
+    }
+
+    /** A directory whose children are loaded when it is first expanded. */
+    private final class DirectoryItem extends TreeItem<RepoEntry> {
+        // Children reflect a listing (rather than a placeholder)
+        private boolean loaded;
+        private boolean loading;
+
+        DirectoryItem(RepoEntry entry) {
+            super(entry);
+            getChildren().add(new Placeholder("Loading..."));
+            expandedProperty().addListener((obs, was, expanded) -> {
+                if (expanded && !loaded && !loading) load(this);
+            });
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return false;
+        }
+    }
+}
@@ -1,37 +1,131 @@
 package com.idtfe.controllers;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
+import com.idtfe.services.ShellSession;
+import com.idtfe.services.TaskExecutor;
 import com.idtfe.services.TerminalService;
 
+import java.io.IOException;
 import java.net.URL;
 import java.util.ResourceBundle;
 
 public class TerminalController implements Initializable {
-    @FXML private TextArea outputArea;
+    @FXML private TerminalOutputView outputView;
     @FXML private TextField inputField;
     @FXML private Button sendButton;
+    @FXML private Button stopButton;
     @FXML private Button clearButton;
+    @FXML private Label throughputLabel;
+    @FXML private CheckBox sessionCheckBox;
+    @FXML private TextField searchField;
+    @FXML private Button findPrevButton;
+    @FXML private Button findNextButton;
 
     private final TerminalService terminalService = new TerminalService();
+    private TerminalService.RunningCommand running;
+    private TerminalOutputSink output;
+    // One shell per terminal tab, so cd/exports persist between commands
+    private ShellSession session;
+    private volatile boolean atLineStart = true;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         sendButton.setOnAction(e -> runCommand());
-        clearButton.setOnAction(e -> outputArea.clear());
+        inputField.setOnAction(e -> runCommand());
+        stopButton.setOnAction(e -> stopCommand());
+        clearButton.setOnAction(e -> output.clear());
+
+        searchField.setOnAction(e -> find(true));
+        findNextButton.setOnAction(e -> find(true));
+        findPrevButton.setOnAction(e -> find(false));
+
+        output = new TerminalOutputSink(outputView, throughputLabel);
+        // Only pulse while the terminal is actually on screen
+        outputView.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene != null) {
+                output.start();
+            } else {
+                output.stop();
+                closeSession();
+            }
+        });
+        sessionCheckBox.selectedProperty().addListener((obs, wasSelected, selected) -> {
+            if (!selected) closeSession();
+        });
+        if (outputView.getScene() != null) output.start();
     }
 
     private void runCommand() {
         String cmd = inputField.getText();
         if (cmd == null || cmd.isBlank()) return;
-        outputArea.appendText("$ " + cmd + "\n");
-        new Thread(() -> {
-            String out = terminalService.runCommand(cmd);
-            javafx.application.Platform.runLater(() -> outputArea.appendText(out + "\n"));
-        }).start();
+        if (running != null && running.isRunning()) {
+            output.append("(a command is still running - press Stop first)\n");
+            return;
+        }
+        output.append("$ " + cmd + "\n");
         inputField.clear();
+        try {
+            TerminalService.OutputListener listener = (chunk, stderr) -> {
+                output.append(chunk);
+                atLineStart = chunk.endsWith("\n");
+            };
+            TerminalService.RunningCommand command;
+            if (sessionCheckBox.isSelected()) {
+                if (session == null || !session.isAlive()) {
+                    session = terminalService.openSession();
+                }
+                command = session.run(cmd, listener);
+            } else {
+                command = terminalService.start(cmd, listener, true);
+            }
+            running = command;
+            stopButton.setDisable(false);
+            command.exitCode().whenComplete((code, error) -> Platform.runLater(() -> {
+                if (running == command) {
+                    running = null;
+                    stopButton.setDisable(true);
+                }
+                String status = error != null ? "[terminated]\n" : "[exit " + code + "]\n";
+                output.append(atLineStart ? status : "\n" + status);
+                atLineStart = true;
+            }));
+        } catch (IOException e) {
+            output.append("Error: " + e.getMessage() + "\n");
+        }
+    }
+
+    /** Searches the whole stored history in the background, starting after the selected line. */
+    private void find(boolean forward) {
+        String query = searchField.getText();
+        if (query == null || query.isEmpty()) return;
+        String needle = query.toLowerCase();
+        long selected = outputView.selectedLine();
+        long from = selected < 0 ? (forward ? outputView.getStore().firstLine() : outputView.getStore().endLine() - 1)
+            : selected + (forward ? 1 : -1);
+        TaskExecutor.getInstance().supplyAsync(() ->
+                outputView.getStore().find(line -> line.toLowerCase().contains(needle), from, forward))
+            .thenAccept(line -> Platform.runLater(() -> {
+                if (line < 0) throughputLabel.setText("No match for \"" + query + "\"");
+                else outputView.reveal(line);
+            }));
+    }
+
+    private void closeSession() {
+        if (session != null) {
+            session.close();
+            session = null;
+        }
+    }
+
+    private void stopCommand() {
+        if (running != null) {
+            running.cancel();
+        }
     }
 }
@@ -0,0 +1,74 @@
+package com.idtfe.controllers;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+
+/**
+ * Buffers terminal output written from any thread and flushes it into the
+ * output view at most once per pulse, reporting the lines/sec rate to a
+ * label. Scrollback limits are enforced by the view's line store.
+ */
+final class TerminalOutputSink {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final TerminalOutputView view;
+    private final Label throughputLabel;
+    private final StringBuilder pending = new StringBuilder();
+    private long windowStart;
+    private long windowLines;
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush(now);
+        }
+    };
+
+    TerminalOutputSink(TerminalOutputView view, Label throughputLabel) {
+        this.view = view;
+        this.throughputLabel = throughputLabel;
+    }
+
+    void start() {
+        timer.start();
+    }
+
+    void stop() {
+        timer.stop();
+    }
+
+    /** Safe to call from any thread. */
+    void append(String text) {
+        synchronized (pending) {
+            pending.append(text);
+        }
+    }
+
+    void clear() {
+        synchronized (pending) {
+            pending.setLength(0);
+        }
+        view.clear();
+    }
+
+    private void flush(long now) {
+        String batch = null;
+        synchronized (pending) {
+            if (pending.length() > 0) {
+                batch = pending.toString();
+                pending.setLength(0);
+            }
+        }
+        if (batch != null) {
+            windowLines += view.getStore().append(batch);
+            view.publishAppended();
+        }
+
+        if (windowStart == 0) windowStart = now;
+        if (now - windowStart >= NANOS_PER_SECOND) {
+            long rate = windowLines * NANOS_PER_SECOND / (now - windowStart);
+            throughputLabel.setText(rate > 0 ? rate + " lines/s" : "");
+            windowStart = now;
+            windowLines = 0;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.idtfe.controllers;
+
+import com.idtfe.services.LineStore;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+
+import java.util.Collections;
+
+/**
+ * Virtualized terminal output. The items are a live window over a
+ * {@link LineStore}: ListView only creates cells for the visible rows and
+ * each row's text is decoded when the cell asks for it, so rendering cost
+ * stays flat no matter how much history is kept.
+ */
+public class TerminalOutputView extends ListView<String> {
+    private static final long DEFAULT_MAX_BYTES = Long.getLong("idtfe.terminal.maxBytes", 256L * 1024 * 1024);
+
+    private final LineStore store = new LineStore(DEFAULT_MAX_BYTES);
+    private final StoreLines lines = new StoreLines();
+    // Window of the store the items list currently reports, updated only on the FX thread
+    private long shownFirst;
+    private long shownEnd = 1;
+
+    public TerminalOutputView() {
+        setItems(lines);
+        setFixedCellSize(18);
+        setStyle("-fx-font-family: 'Consolas', 'Monaco', monospace;");
+        getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        setOnKeyPressed(e -> {
+            if (e.isShortcutDown() && e.getCode() == KeyCode.C) copySelection();
+            else if (e.getCode() == KeyCode.ESCAPE) getSelectionModel().clearSelection();
+        });
+    }
+
+    public LineStore getStore() {
+        return store;
+    }
+
+    /** Appends text to the store and publishes the new lines. Must run on the FX thread. */
+    public void append(String text) {
+        store.append(text);
+        publishAppended();
+    }
+
+    public void clear() {
+        store.clear();
+        getSelectionModel().clearSelection();
+        publishAppended();
+    }
+
+    /** Selects and reveals an absolute store line, e.g. a search hit. */
+    public void reveal(long line) {
+        if (line < shownFirst || line >= shownEnd) return;
+        int row = (int) (line - shownFirst);
+        getSelectionModel().clearAndSelect(row);
+        scrollTo(Math.max(0, row - 3));
+    }
+
+    /** Absolute store line of the current selection, or -1. */
+    public long selectedLine() {
+        int row = getSelectionModel().getSelectedIndex();
+        return row < 0 ? -1 : shownFirst + row;
+    }
+
+    /** Publishes lines appended directly to the store. Must run on the FX thread. */
+    public void publishAppended() {
+        long first = store.firstLine();
+        long end = store.endLine();
+        // Follow the tail unless the user is looking at a selected line
+        boolean follow = getSelectionModel().isEmpty();
+        lines.update(first, end);
+        if (follow && !lines.isEmpty()) scrollTo(lines.size() - 1);
+    }
+
+    private void copySelection() {
+        StringBuilder text = new StringBuilder();
+        for (String line : getSelectionModel().getSelectedItems()) {
+            text.append(line).append('\n');
+        }
+        ClipboardContent content = new ClipboardContent();
+        content.putString(text.toString());
+        Clipboard.getSystemClipboard().setContent(content);
+    }
+
+    private final class StoreLines extends ObservableListBase<String> {
+        @Override
+        public String get(int index) {
+            try {
+                return store.line(shownFirst + index);
+            } catch (IndexOutOfBoundsException e) {
+                return "";
+            }
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(Integer.MAX_VALUE, shownEnd - shownFirst);
+        }
+
+        void update(long first, long end) {
+            long oldFirst = shownFirst;
+            long oldEnd = shownEnd;
+            if (first == oldFirst && end == oldEnd) {
+                // Only the open last line grew
+                beginChange();
+                nextSet(size() - 1, "");
+                endChange();
+                return;
+            }
+            beginChange();
+            if (first < oldFirst || end < oldEnd) {
+                // Store was cleared: replace everything
+                int oldSize = size();
+                shownFirst = first;
+                shownEnd = end;
+                nextReplace(0, size(), Collections.nCopies(oldSize, ""));
+                endChange();
+                return;
+            }
+            int dropped = (int) Math.min(first - oldFirst, oldEnd - oldFirst);
+            if (dropped > 0) {
+                nextRemove(0, Collections.nCopies(dropped, ""));
+            }
+            shownFirst = first;
+            shownEnd = end;
+            int keptOld = (int) (oldEnd - Math.max(first, oldFirst));
+            if (keptOld > 0) nextSet(keptOld - 1, "");
+            int added = (int) (end - Math.max(oldEnd, first));
+            if (added > 0) nextAdd(size() - added, size());
+            endChange();
+        }
+    }
+}
@@ -1,25 +1,41 @@
 package com.idtfe.controllers;
 
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.web.WebView;
 import javafx.stage.FileChooser;
 import javafx.stage.DirectoryChooser;
+import javafx.util.Duration;
 import com.idtfe.services.ApiClient;
+import com.idtfe.services.CodeFormatter;
+import com.idtfe.services.Diagnostic;
+import com.idtfe.services.EditJournal;
+import com.idtfe.services.EditorService;
+import com.idtfe.services.FileIndex;
+import com.idtfe.services.IgnoreRules;
+import com.idtfe.services.LintEngine;
+import com.idtfe.services.PieceTable;
+import com.idtfe.services.TaskExecutor;
+import com.idtfe.services.TrigramIndex;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
 
 public class WebIdeController implements Initializable {
     
@@ -31,16 +47,39 @@ public class WebIdeController implements Initializable {
     @FXML private Button previewButton;
     @FXML private ComboBox<String> fileTypeCombo;
     @FXML private TextArea codeEditor;
+    @FXML private LargeFileView largeFileView;
     @FXML private WebView previewWebView;
-    @FXML private TextArea lintOutput;
+    @FXML private ListView<Diagnostic> lintList;
+    @FXML private Label lintStatusLabel;
     @FXML private Label statusLabel;
     @FXML private Label filePathLabel;
-    @FXML private TreeView<String> fileTreeView;
+    @FXML private TreeView<Path> fileTreeView;
+    @FXML private TextField quickOpenField;
     @FXML private CheckBox autoDetectResourcesCheckBox;
+    @FXML private TextField searchField;
+    @FXML private CheckBox regexCheckBox;
+    @FXML private CheckBox matchCaseCheckBox;
+    @FXML private Label searchStatusLabel;
+    @FXML private ListView<TrigramIndex.Match> searchResultsList;
+    
+    // Format through the backend instead of the local formatters; types without a local formatter always do
+    private static final boolean REMOTE_FORMAT = Boolean.getBoolean("idtfe.format.remote");
+    // Lint with the backend (Lint button only) instead of linting locally as you type
+    private static final boolean REMOTE_LINT = Boolean.getBoolean("idtfe.lint.remote");
+    private static final long LINT_DELAY_MS = Long.getLong("idtfe.lint.delayMs", 400);
     
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EditorService editorService = new EditorService();
+    private DocumentBinding document;
     private File currentFile;
     private File currentDirectory;
+    private FileTree fileTree;
+    private FileIndex fileIndex;
+    private TrigramIndex searchIndex;
+    private CompletableFuture<TrigramIndex.Result> inFlightSearch;
+    private SearchResultsFeed searchFeed;
+    private final LintEngine linter = new LintEngine();
+    private final PauseTransition lintDelay = new PauseTransition(Duration.millis(LINT_DELAY_MS));
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -55,15 +94,89 @@ public class WebIdeController implements Initializable {
         formatButton.setOnAction(e -> formatCode());
         lintButton.setOnAction(e -> lintCode());
         previewButton.setOnAction(e -> previewCode());
+        document = new DocumentBinding(codeEditor);
+        startJournal();
         
         // Auto-detect resources checkbox
         autoDetectResourcesCheckBox.setSelected(true);
         autoDetectResourcesCheckBox.setText("Auto-detect CSS/JS files");
         
         // File tree selection handler
+        fileTreeView.setCellFactory(FileTreeItem.cellFactory());
         fileTreeView.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
-            if (newSelection != null && newSelection.isLeaf()) {
-                loadFileFromTree(newSelection.getValue());
+            if (newSelection instanceof FileTreeItem && !((FileTreeItem) newSelection).isDirectory()) {
+                loadFile(newSelection.getValue().toFile());
+            }
+        });
+        quickOpenField.setOnAction(e -> quickOpen());
+        
+        // Lint once typing pauses; results are listed and jump to their position when opened
+        lintDelay.setOnFinished(e -> lintNow());
+        if (!REMOTE_LINT) {
+            codeEditor.textProperty().addListener((obs, oldText, newText) -> lintDelay.playFromStart());
+            fileTypeCombo.valueProperty().addListener((obs, oldType, newType) -> lintDelay.playFromStart());
+        }
+        lintList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Diagnostic d, boolean empty) {
+                super.updateItem(d, empty);
+                if (empty || d == null) {
+                    setText(null);
+                    setStyle("");
+                } else {
+                    setText(String.format("Ln %d, Col %d  %-7s %s  (%s)", d.line(), d.column(), d.severity(), d.message(), d.rule()));
+                    setStyle(switch (d.severity()) {
+                        case ERROR -> "-fx-text-fill: #c62828;";
+                        case WARNING -> "-fx-text-fill: #b26a00;";
+                        case INFO -> "-fx-text-fill: #666;";
+                    });
+                }
+            }
+        });
+        lintList.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) openDiagnostic();
+        });
+        lintList.setOnKeyPressed(e -> {
+            if (e.getCode() == javafx.scene.input.KeyCode.ENTER) openDiagnostic();
+        });
+        
+        // Find in files
+        searchField.setOnAction(e -> runSearch());
+        searchResultsList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(TrigramIndex.Match match, boolean empty) {
+                super.updateItem(match, empty);
+                if (empty || match == null) {
+                    setText(null);
+                } else {
+                    Path shown = fileIndex != null ? fileIndex.getRoot().relativize(match.path()) : match.path();
+                    setText(shown + ":" + match.line() + ":  " + match.text().strip());
+                }
+            }
+        });
+        searchResultsList.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) openSearchResult();
+        });
+        searchResultsList.setOnKeyPressed(e -> {
+            if (e.getCode() == javafx.scene.input.KeyCode.ENTER) openSearchResult();
+        });
+        
+        // Stop watching the project once the IDE tab is closed
+        fileTreeView.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) {
+                largeFileView.close();
+                document.close();
+                lintDelay.stop();
+                linter.cancel();
+            } else if (!document.isJournaled()) {
+                startJournal();
+            }
+            if (newScene == null && fileTree != null) {
+                fileTree.close();
+                fileTree = null;
+                closeIndexes();
+            } else if (newScene != null && fileTree == null) {
+                refreshFileTree();
             }
         });
         
@@ -120,78 +233,189 @@ public class WebIdeController implements Initializable {
     private void refreshFileTree() {
         if (currentDirectory == null) return;
         
-        TreeItem<String> rootItem = new TreeItem<>(currentDirectory.getName());
-        rootItem.setExpanded(true);
-        
-        try {
-            buildFileTree(currentDirectory.toPath(), rootItem);
-            fileTreeView.setRoot(rootItem);
-        } catch (IOException e) {
-            statusLabel.setText("Error reading directory: " + e.getMessage());
+        Path root = currentDirectory.toPath().toAbsolutePath();
+        if (fileTree != null && fileTree.getRootPath().equals(root)) {
+            // Same project: re-list expanded folders in place, keeping expansion and selection
+            fileTree.refresh();
+            return;
         }
+        if (fileTree != null) {
+            fileTree.close();
+            closeIndexes();
+        }
+        // Hidden files stay out of the IDE tree, as before
+        IgnoreRules rules = IgnoreRules.forProject(root, ".*");
+        fileTree = new FileTree(root, rules);
+        fileTreeView.setRoot(fileTree.getRoot());
+        fileTree.getRoot().setExpanded(true);
+        
+        FileIndex index = FileIndex.build(root, rules);
+        fileIndex = index;
+        ApiClient.onFxThread(index.whenReady()).whenComplete((count, error) -> {
+            if (error == null && fileIndex == index) {
+                statusLabel.setText("Indexed " + count + " files in " + root.getFileName());
+            }
+        });
+        
+        // Search index is loaded from disk and only re-reads files changed since last time
+        TrigramIndex search = TrigramIndex.open(index);
+        searchIndex = search;
+        searchStatusLabel.setText("Building search index...");
+        ApiClient.onFxThread(search.whenReady()).whenComplete((count, error) -> {
+            if (error == null && searchIndex == search) {
+                searchStatusLabel.setText("Search index ready (" + count + " files)");
+            }
+        });
     }
     
-    private void buildFileTree(Path directory, TreeItem<String> parentItem) throws IOException {
-        List<Path> files = Files.list(directory)
-            .filter(path -> !path.getFileName().toString().startsWith("."))
-            .sorted((a, b) -> {
-                // Directories first, then files
-                if (Files.isDirectory(a) && !Files.isDirectory(b)) return -1;
-                if (!Files.isDirectory(a) && Files.isDirectory(b)) return 1;
-                return a.getFileName().toString().compareToIgnoreCase(b.getFileName().toString());
-            })
-            .collect(Collectors.toList());
+    private void closeIndexes() {
+        if (inFlightSearch != null) inFlightSearch.cancel(true);
+        searchIndex.close();
+        searchIndex = null;
+        fileIndex.close();
+        fileIndex = null;
+    }
+    
+    private void runSearch() {
+        String query = searchField.getText();
+        if (query.isEmpty()) return;
+        if (searchIndex == null) {
+            searchStatusLabel.setText("Open a folder first");
+            return;
+        }
+        if (inFlightSearch != null) inFlightSearch.cancel(true);
         
-        for (Path file : files) {
-            TreeItem<String> item = new TreeItem<>(file.getFileName().toString());
-            parentItem.getChildren().add(item);
-            
-            if (Files.isDirectory(file)) {
-                item.setExpanded(false);
-                // Add a placeholder to make it expandable
-                item.getChildren().add(new TreeItem<>("Loading..."));
-                
-                // Lazy loading for directories
-                item.expandedProperty().addListener((obs, wasExpanded, isExpanded) -> {
-                    if (isExpanded && item.getChildren().size() == 1 && 
-                        "Loading...".equals(item.getChildren().get(0).getValue())) {
-                        item.getChildren().clear();
-                        try {
-                            buildFileTree(file, item);
-                        } catch (IOException e) {
-                            item.getChildren().add(new TreeItem<>("Error loading"));
-                        }
-                    }
-                });
+        searchResultsList.getItems().clear();
+        SearchResultsFeed feed = new SearchResultsFeed();
+        searchFeed = feed;
+        searchStatusLabel.setText(searchIndex.isReady() ? "Searching..." : "Searching (index still building)...");
+        
+        CompletableFuture<TrigramIndex.Result> search = searchIndex.search(query,
+            regexCheckBox.isSelected(), matchCaseCheckBox.isSelected(), feed);
+        inFlightSearch = search;
+        ApiClient.onFxThread(search).whenComplete((result, error) -> {
+            if (inFlightSearch != search) return;
+            inFlightSearch = null;
+            feed.flush();
+            if (error != null) {
+                Throwable cause = ApiClient.unwrap(error);
+                if (cause instanceof java.util.regex.PatternSyntaxException) {
+                    searchStatusLabel.setText("Invalid regex: " + ((java.util.regex.PatternSyntaxException) cause).getDescription());
+                } else if (!search.isCancelled()) {
+                    searchStatusLabel.setText("Search error: " + cause.getMessage());
+                }
+                return;
             }
+            searchStatusLabel.setText(String.format("%d matches in %d files (%d of %d files scanned) - %d ms%s",
+                result.matches(), result.filesMatched(), result.candidates(), result.indexedFiles(),
+                result.elapsedMs(), result.truncated() ? " - results truncated" : ""));
+        });
+    }
+    
+    private void openSearchResult() {
+        TrigramIndex.Match match = searchResultsList.getSelectionModel().getSelectedItem();
+        if (match == null) return;
+        loadFile(match.path().toFile());
+        if (!match.path().toFile().equals(currentFile)) return;
+        if (largeFileView.getFile() != null) {
+            largeFileView.goToLine(match.line());
+            return;
         }
+        
+        // Select the matching line
+        String text = codeEditor.getText();
+        int start = lineStart(text, match.line());
+        if (start < 0) return;
+        int end = text.indexOf('\n', start);
+        codeEditor.selectRange(start, end < 0 ? text.length() : end);
+        codeEditor.requestFocus();
     }
     
-    private void loadFileFromTree(String fileName) {
-        if (currentDirectory == null) return;
+    /** Offset where 1-based {@code line} starts in {@code text}, or -1 past the end. */
+    private static int lineStart(String text, int line) {
+        int start = 0;
+        for (int n = 1; n < line; n++) {
+            start = text.indexOf('\n', start) + 1;
+            if (start == 0) return -1;
+        }
+        return start;
+    }
+    
+    /** Collects matches from the search workers and adds them to the list once per FX pulse. */
+    private final class SearchResultsFeed implements Consumer<TrigramIndex.Match> {
+        private final ConcurrentLinkedQueue<TrigramIndex.Match> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
         
-        // Find the file in the current directory or subdirectories
-        try {
-            Path filePath = findFileInDirectory(currentDirectory.toPath(), fileName);
-            if (filePath != null) {
-                loadFile(filePath.toFile());
+        @Override
+        public void accept(TrigramIndex.Match match) {
+            pending.add(match);
+            if (scheduled.compareAndSet(false, true)) {
+                javafx.application.Platform.runLater(this::flush);
             }
-        } catch (IOException e) {
-            statusLabel.setText("Error loading file: " + e.getMessage());
+        }
+        
+        void flush() {
+            scheduled.set(false);
+            List<TrigramIndex.Match> batch = new ArrayList<>();
+            TrigramIndex.Match match;
+            while ((match = pending.poll()) != null) batch.add(match);
+            if (searchFeed == this && !batch.isEmpty()) searchResultsList.getItems().addAll(batch);
         }
     }
     
-    private Path findFileInDirectory(Path directory, String fileName) throws IOException {
-        return Files.walk(directory)
-            .filter(path -> path.getFileName().toString().equals(fileName))
-            .findFirst()
-            .orElse(null);
+    private void quickOpen() {
+        String name = quickOpenField.getText().trim();
+        if (name.isEmpty()) return;
+        if (fileIndex == null) {
+            statusLabel.setText("Open a folder first");
+            return;
+        }
+        
+        List<Path> matches = fileIndex.findByName(name);
+        if (matches.isEmpty()) {
+            statusLabel.setText(fileIndex.isReady() ? "No file named " + name : "Still indexing, try again shortly");
+            return;
+        }
+        Path target = matches.get(0);
+        if (matches.size() > 1) {
+            // Same name in several folders: pick by path relative to the project
+            List<String> choices = new ArrayList<>();
+            for (Path match : matches) {
+                choices.add(fileIndex.getRoot().relativize(match).toString());
+            }
+            ChoiceDialog<String> dialog = new ChoiceDialog<>(choices.get(0), choices);
+            dialog.setTitle("Go to File");
+            dialog.setHeaderText(matches.size() + " files named " + name);
+            Optional<String> choice = dialog.showAndWait();
+            if (choice.isEmpty()) return;
+            target = fileIndex.getRoot().resolve(choice.get());
+        }
+        loadFile(target.toFile());
     }
     
     private void loadFile(File file) {
+        if (editorService.isLargeFile(file.toPath())) {
+            // Too big for the text area: show it read-only in the paged viewer
+            try {
+                largeFileView.open(editorService.openLargeFile(file.toPath()));
+            } catch (IOException e) {
+                statusLabel.setText("Error loading file: " + e.getMessage());
+                return;
+            }
+            document.load("");
+            document.describe(null, "");
+            showLargeFileView(true);
+            currentFile = file;
+            filePathLabel.setText(file.getAbsolutePath());
+            statusLabel.setText("Opened read-only (large file): " + file.getName());
+            return;
+        }
         try {
-            String content = Files.readString(file.toPath());
-            codeEditor.setText(content);
+            String content = editorService.load(file.toPath());
+            largeFileView.close();
+            showLargeFileView(false);
+            document.load(content);
+            document.describe(file.toPath(), file.getAbsolutePath());
             currentFile = file;
             filePathLabel.setText(file.getAbsolutePath());
             statusLabel.setText("Loaded: " + file.getName());
@@ -200,10 +424,36 @@ public class WebIdeController implements Initializable {
         }
     }
     
+    /** Journals unsaved edits so they can be recovered after a crash. */
+    private void startJournal() {
+        try {
+            document.journal(EditJournal.open("Web IDE"));
+            if (currentFile != null) document.describe(currentFile.toPath(), currentFile.getAbsolutePath());
+        } catch (IOException e) {
+            statusLabel.setText("Crash recovery unavailable: " + e.getMessage());
+        }
+    }
+    
+    private void showLargeFileView(boolean large) {
+        largeFileView.setVisible(large);
+        codeEditor.setVisible(!large);
+    }
+    
     private void saveFile() {
+        if (largeFileView.getFile() != null) {
+            statusLabel.setText("Large files are opened read-only");
+            return;
+        }
         if (currentFile != null) {
             try {
-                Files.writeString(currentFile.toPath(), codeEditor.getText());
+                PieceTable text = document.snapshot();
+                editorService.save(currentFile.toPath(), text);
+                document.saved(text);
+                if (fileIndex != null) {
+                    FileIndex index = fileIndex;
+                    Path saved = currentFile.toPath().toAbsolutePath();
+                    TaskExecutor.getInstance().execute(() -> index.refresh(saved));
+                }
                 statusLabel.setText("Saved: " + currentFile.getName());
             } catch (IOException e) {
                 statusLabel.setText("Error saving file: " + e.getMessage());
@@ -220,7 +470,10 @@ public class WebIdeController implements Initializable {
         File file = fileChooser.showSaveDialog(saveFileButton.getScene().getWindow());
         if (file != null) {
             try {
-                Files.writeString(file.toPath(), codeEditor.getText());
+                PieceTable text = document.snapshot();
+                editorService.save(file.toPath(), text);
+                document.saved(text);
+                document.describe(file.toPath(), file.getAbsolutePath());
                 currentFile = file;
                 filePathLabel.setText(file.getAbsolutePath());
                 statusLabel.setText("Saved: " + file.getName());
@@ -235,20 +488,26 @@ public class WebIdeController implements Initializable {
     }
     
     private void formatCode() {
-        String content = codeEditor.getText();
-        if (content.trim().isEmpty()) {
+        PieceTable content = document.snapshot();
+        if (content.isBlank()) {
             statusLabel.setText("No content to format");
             return;
         }
         
-        statusLabel.setText("Formatting code...");
+        String type = fileTypeCombo.getValue();
+        CodeFormatter formatter = REMOTE_FORMAT ? null : CodeFormatter.forType(type);
+        if (formatter != null) {
+            formatLocally(formatter, content);
+            return;
+        }
+        statusLabel.setText("Formatting code on the server...");
         
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 Map<String, String> requestData = new HashMap<>();
                 requestData.put("action", "format");
-                requestData.put("content", content);
-                requestData.put("file_type", fileTypeCombo.getValue());
+                requestData.put("content", content.toString());
+                requestData.put("file_type", type);
                 
                 String response = ApiClient.getInstance().post("/api/v1/tools/ide/action", requestData);
                 Map<String, Object> result = objectMapper.readValue(response, Map.class);
@@ -266,23 +525,49 @@ public class WebIdeController implements Initializable {
                 javafx.application.Platform.runLater(() -> 
                     statusLabel.setText("Format error: " + e.getMessage()));
             }
-        }).start();
+        });
+    }
+    
+    /** Formats on a worker thread and applies the result unless the text changed meanwhile. */
+    private void formatLocally(CodeFormatter formatter, PieceTable content) {
+        long version = document.document().getVersion();
+        long started = System.nanoTime();
+        statusLabel.setText("Formatting code...");
+        ApiClient.onFxThread(TaskExecutor.getInstance().supplyAsync(() -> formatter.format(content.toString())))
+            .whenComplete((formatted, error) -> {
+                if (error != null) {
+                    statusLabel.setText("Format error: " + ApiClient.unwrap(error).getMessage());
+                } else if (document.document().getVersion() != version) {
+                    statusLabel.setText("Text changed while formatting - format again");
+                } else if (formatted.contentEquals(content)) {
+                    statusLabel.setText("Already formatted");
+                } else {
+                    codeEditor.setText(formatted);
+                    statusLabel.setText(String.format("Code formatted (%d ms)", (System.nanoTime() - started) / 1_000_000));
+                }
+            });
     }
     
     private void lintCode() {
-        String content = codeEditor.getText();
-        if (content.trim().isEmpty()) {
-            lintOutput.setText("No content to lint");
+        if (!REMOTE_LINT) {
+            lintDelay.stop();
+            lintNow();
+            return;
+        }
+        PieceTable content = document.snapshot();
+        if (content.isBlank()) {
+            lintList.getItems().clear();
+            lintStatusLabel.setText("No content to lint");
             return;
         }
         
-        statusLabel.setText("Linting code...");
+        statusLabel.setText("Linting code on the server...");
         
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 Map<String, String> requestData = new HashMap<>();
                 requestData.put("action", "lint");
-                requestData.put("content", content);
+                requestData.put("content", content.toString());
                 requestData.put("file_type", fileTypeCombo.getValue());
                 
                 String response = ApiClient.getInstance().post("/api/v1/tools/ide/action", requestData);
@@ -290,38 +575,68 @@ public class WebIdeController implements Initializable {
                 
                 javafx.application.Platform.runLater(() -> {
                     if ((Boolean) result.get("success")) {
-                        java.util.List<Map<String, Object>> issues = 
-                            (java.util.List<Map<String, Object>>) result.get("issues");
-                        
-                        if (issues.isEmpty()) {
-                            lintOutput.setText("✓ No issues found");
-                        } else {
-                            StringBuilder sb = new StringBuilder();
-                            for (Map<String, Object> issue : issues) {
-                                sb.append("Line ").append(issue.get("line"))
-                                  .append(": ").append(issue.get("message")).append("\n");
-                            }
-                            lintOutput.setText(sb.toString());
+                        List<Diagnostic> diagnostics = new ArrayList<>();
+                        for (Map<String, Object> issue : (List<Map<String, Object>>) result.get("issues")) {
+                            diagnostics.add(new Diagnostic(((Number) issue.get("line")).intValue(), 1,
+                                Diagnostic.Severity.WARNING, "server", (String) issue.get("message")));
                         }
+                        showDiagnostics(diagnostics, "");
                         statusLabel.setText("Linting completed");
                     } else {
-                        lintOutput.setText("Linting failed");
+                        lintStatusLabel.setText("Linting failed");
                         statusLabel.setText("Lint failed");
                     }
                 });
                 
             } catch (Exception e) {
                 javafx.application.Platform.runLater(() -> {
-                    lintOutput.setText("Lint error: " + e.getMessage());
+                    lintStatusLabel.setText("Lint error: " + e.getMessage());
                     statusLabel.setText("Lint error");
                 });
             }
-        }).start();
+        });
+    }
+    
+    /** Lints the current text locally; a newer edit cancels this pass. */
+    private void lintNow() {
+        if (largeFileView.getFile() != null) {
+            linter.cancel();
+            lintList.getItems().clear();
+            lintStatusLabel.setText("Large files are not linted");
+            return;
+        }
+        ApiClient.onFxThread(linter.lint(fileTypeCombo.getValue(), document.snapshot())).whenComplete((report, error) -> {
+            if (error != null) {
+                Throwable cause = ApiClient.unwrap(error);
+                if (!(cause instanceof CancellationException)) lintStatusLabel.setText("Lint error: " + cause.getMessage());
+                return;
+            }
+            showDiagnostics(report.diagnostics(), String.format(" - %d of %d lines checked in %d ms",
+                report.linesChecked(), report.lines(), report.elapsedMs()));
+        });
+    }
+    
+    private void showDiagnostics(List<Diagnostic> diagnostics, String detail) {
+        lintList.getItems().setAll(diagnostics);
+        int n = diagnostics.size();
+        lintStatusLabel.setText((n == 0 ? "✓ No issues found" : n == 1 ? "1 problem" : n + " problems") + detail);
+    }
+    
+    private void openDiagnostic() {
+        Diagnostic d = lintList.getSelectionModel().getSelectedItem();
+        if (d == null || largeFileView.getFile() != null) return;
+        String text = codeEditor.getText();
+        int start = lineStart(text, d.line());
+        if (start < 0) return;
+        int end = text.indexOf('\n', start);
+        if (end < 0) end = text.length();
+        codeEditor.positionCaret(Math.min(end, start + d.column() - 1));
+        codeEditor.requestFocus();
     }
     
     private void previewCode() {
-        String content = codeEditor.getText();
-        if (content.trim().isEmpty()) {
+        PieceTable content = document.snapshot();
+        if (content.isBlank()) {
             previewWebView.getEngine().loadContent("");
             statusLabel.setText("No content to preview");
             return;
@@ -329,11 +644,11 @@ public class WebIdeController implements Initializable {
         
         statusLabel.setText("Generating preview...");
         
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 Map<String, Object> requestData = new HashMap<>();
                 requestData.put("action", "preview");
-                requestData.put("content", content);
+                requestData.put("content", content.toString());
                 requestData.put("file_type", fileTypeCombo.getValue());
                 requestData.put("auto_detect_resources", autoDetectResourcesCheckBox.isSelected());
                 
@@ -380,6 +695,6 @@ public class WebIdeController implements Initializable {
                 javafx.application.Platform.runLater(() -> 
                     statusLabel.setText("Preview error: " + e.getMessage()));
             }
-        }).start();
+        });
     }
 }
\ No newline at end of file
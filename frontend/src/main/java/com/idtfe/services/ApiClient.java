@@ -1,16 +1,45 @@
 package com.idtfe.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.*;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+import java.util.zip.GZIPOutputStream;
 
 public class ApiClient {
     private static ApiClient instance;
@@ -19,14 +48,104 @@ public class ApiClient {
     private final String baseUrl = "https://intergrated-developers-tools-for.onrender.com";
     // For Render deployment, use: "https://your-service-name.onrender.com"
     
+    // Connection pool tuning, overridable with -Didtfe.http.* system properties
+    private static final int MAX_TOTAL_CONNECTIONS = Integer.getInteger("idtfe.http.maxTotal", 20);
+    private static final int MAX_PER_ROUTE_CONNECTIONS = Integer.getInteger("idtfe.http.maxPerRoute", 10);
+    private static final int VALIDATE_AFTER_INACTIVITY_MS = Integer.getInteger("idtfe.http.validateAfterInactivityMs", 2000);
+    private static final long IDLE_EVICTION_SECONDS = Long.getLong("idtfe.http.idleEvictionSeconds", 30L);
+    private static final long DEFAULT_KEEP_ALIVE_MS = Long.getLong("idtfe.http.keepAliveMs", 30_000L);
+    private static final int CONNECT_TIMEOUT_MS = Integer.getInteger("idtfe.http.connectTimeoutMs", 10_000);
+    private static final int SOCKET_TIMEOUT_MS = Integer.getInteger("idtfe.http.socketTimeoutMs", 60_000);
+    private static final Duration DEFAULT_ASYNC_TIMEOUT = Duration.ofMillis(SOCKET_TIMEOUT_MS);
+    // Request bodies from postWithProgress larger than this are sent gzip-compressed
+    private static final int COMPRESS_MIN_BYTES = Integer.getInteger("idtfe.http.compressMinBytes", 64 * 1024);
+    
+    /** A response whose status says the request failed; only thrown where callers need the status. */
+    public static class HttpStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        private final int status;
+        
+        public HttpStatusException(int status, String message) {
+            super("HTTP " + status + (message.isBlank() ? "" : ": " + message));
+            this.status = status;
+        }
+        
+        public int getStatus() {
+            return status;
+        }
+    }
+    
+    private final PoolingHttpClientConnectionManager connectionManager;
     private final CloseableHttpClient httpClient;
+    private final PoolingNHttpClientConnectionManager asyncConnectionManager;
+    private final CloseableHttpAsyncClient asyncClient;
     private final ObjectMapper objectMapper;
+    private final HttpCache cache = new HttpCache();
     
     private ApiClient() {
-        this.httpClient = HttpClients.createDefault();
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_TOTAL_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_PER_ROUTE_CONNECTIONS);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+        
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(CONNECT_TIMEOUT_MS)
+            .setConnectionRequestTimeout(CONNECT_TIMEOUT_MS)
+            .setSocketTimeout(SOCKET_TIMEOUT_MS)
+            .build();
+        
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setKeepAliveStrategy(keepAliveStrategy())
+            .setDefaultRequestConfig(requestConfig)
+            .evictExpiredConnections()
+            .evictIdleConnections(IDLE_EVICTION_SECONDS, TimeUnit.SECONDS)
+            .build();
+        
+        // Non-blocking engine for the *Async methods; shares the same limits as the blocking pool
+        try {
+            IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout(CONNECT_TIMEOUT_MS)
+                .setSoTimeout(SOCKET_TIMEOUT_MS)
+                .build();
+            this.asyncConnectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig));
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("Unable to start HTTP I/O reactor", e);
+        }
+        asyncConnectionManager.setMaxTotal(MAX_TOTAL_CONNECTIONS);
+        asyncConnectionManager.setDefaultMaxPerRoute(MAX_PER_ROUTE_CONNECTIONS);
+        
+        this.asyncClient = HttpAsyncClients.custom()
+            .setConnectionManager(asyncConnectionManager)
+            .setKeepAliveStrategy(keepAliveStrategy())
+            .setDefaultRequestConfig(requestConfig)
+            .build();
+        asyncClient.start();
         this.objectMapper = new ObjectMapper();
     }
     
+    /**
+     * Honors the server's Keep-Alive timeout when present, otherwise keeps
+     * pooled connections for DEFAULT_KEEP_ALIVE_MS instead of indefinitely.
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (HttpResponse response, HttpContext context) -> {
+            BasicHeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Long.parseLong(element.getValue()) * 1000L;
+                    } catch (NumberFormatException ignored) {
+                        // fall through to the default
+                    }
+                }
+            }
+            return DEFAULT_KEEP_ALIVE_MS;
+        };
+    }
+    
     public static ApiClient getInstance() {
         if (instance == null) {
             instance = new ApiClient();
@@ -40,44 +159,263 @@ public class ApiClient {
     }
     
     public void checkHealth() {
-        new Thread(() -> {
+        TaskExecutor.getInstance().execute(() -> {
             try {
                 HttpGet request = new HttpGet(baseUrl + "/api/v1/health");
-                var response = httpClient.execute(request);
-                String responseBody = EntityUtils.toString(response.getEntity());
-                
-                if (response.getStatusLine().getStatusCode() != 200) {
-                    Platform.runLater(() -> showError("Backend connection failed"));
-                } else {
-                    System.out.println("Backend health check successful: " + responseBody);
+                try (CloseableHttpResponse response = httpClient.execute(request)) {
+                    String responseBody = EntityUtils.toString(response.getEntity());
+                    
+                    if (response.getStatusLine().getStatusCode() != 200) {
+                        Platform.runLater(() -> showError("Backend connection failed"));
+                    } else {
+                        System.out.println("Backend health check successful: " + responseBody);
+                    }
                 }
             } catch (IOException e) {
                 Platform.runLater(() -> showError("Cannot connect to backend: " + e.getMessage()));
             }
-        }).start();
+        });
     }
     
     public String get(String endpoint) throws IOException {
-        HttpGet request = new HttpGet(baseUrl + endpoint);
-        var response = httpClient.execute(request);
-        return EntityUtils.toString(response.getEntity());
+        return executeGet(baseUrl + endpoint);
     }
 
     public String rawGet(String fullUrl) throws IOException {
-        HttpGet request = new HttpGet(fullUrl);
-        var response = httpClient.execute(request);
-        return EntityUtils.toString(response.getEntity());
+        return executeGet(fullUrl);
+    }
+    
+    /** Downloads the exact bytes at {@code fullUrl}, bypassing the response cache (see {@link BlobStore}). */
+    public byte[] rawGetBytes(String fullUrl) throws IOException {
+        try (CloseableHttpResponse response = httpClient.execute(new HttpGet(fullUrl))) {
+            if (response.getEntity() == null) return new byte[0];
+            try {
+                return EntityUtils.toByteArray(response.getEntity());
+            } finally {
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
+        }
     }
     
     public String post(String endpoint, Object data) throws IOException {
+        cache.invalidate(baseUrl + endpoint);
         HttpPost request = new HttpPost(baseUrl + endpoint);
         request.setHeader("Content-Type", "application/json");
         
         String json = objectMapper.writeValueAsString(data);
-        request.setEntity(new StringEntity(json));
+        request.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
         
-        var response = httpClient.execute(request);
-        return EntityUtils.toString(response.getEntity());
+        return execute(request);
+    }
+    
+    /**
+     * POSTs {@code data} as JSON for large uploads: the body is
+     * gzip-compressed once it exceeds COMPRESS_MIN_BYTES, {@code progress}
+     * gets the fraction sent so far (on the calling thread), and an error
+     * status is thrown as {@link HttpStatusException}.
+     */
+    public String postWithProgress(String endpoint, Object data, DoubleConsumer progress) throws IOException {
+        cache.invalidate(baseUrl + endpoint);
+        byte[] json = objectMapper.writeValueAsBytes(data);
+        HttpPost request = new HttpPost(baseUrl + endpoint);
+        byte[] body = json;
+        if (json.length > COMPRESS_MIN_BYTES) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            body = compressed.toByteArray();
+            request.setHeader("Content-Encoding", "gzip");
+        }
+        long total = body.length;
+        request.setEntity(new HttpEntityWrapper(new ByteArrayEntity(body, ContentType.APPLICATION_JSON)) {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                super.writeTo(new FilterOutputStream(out) {
+                    private long sent;
+                    
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        // In slices, so progress moves while a large body is on its way
+                        for (int at = off; at < off + len; at += 16 * 1024) {
+                            int n = Math.min(16 * 1024, off + len - at);
+                            out.write(b, at, n);
+                            sent += n;
+                            progress.accept((double) sent / total);
+                        }
+                    }
+                });
+            }
+        });
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            String responseBody = response.getEntity() == null ? "" : EntityUtils.toString(response.getEntity());
+            EntityUtils.consumeQuietly(response.getEntity());
+            int status = response.getStatusLine().getStatusCode();
+            if (status >= 300) throw new HttpStatusException(status, response.getStatusLine().getReasonPhrase());
+            return responseBody;
+        }
+    }
+    
+    /**
+     * Reads the body and closes the response so the connection always goes
+     * back to the pool, even when reading the entity fails.
+     */
+    private String execute(HttpUriRequest request) throws IOException {
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            if (response.getEntity() == null) return "";
+            try {
+                return EntityUtils.toString(response.getEntity());
+            } finally {
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
+        }
+    }
+    
+    /** GET through the response cache: fresh entries skip the request, stale ones are revalidated. */
+    private String executeGet(String url) throws IOException {
+        HttpCache.Entry cached = cache.lookup(url);
+        String fresh = cache.fresh(cached);
+        if (fresh != null) return fresh;
+        HttpGet request = new HttpGet(url);
+        HttpCache.addValidators(request, cached);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            return cache.complete(url, cached, response);
+        }
+    }
+    
+    public CompletableFuture<String> getAsync(String endpoint) {
+        return getAsync(endpoint, DEFAULT_ASYNC_TIMEOUT);
+    }
+    
+    public CompletableFuture<String> getAsync(String endpoint, Duration timeout) {
+        return executeGetAsync(baseUrl + endpoint, timeout);
+    }
+    
+    public CompletableFuture<String> rawGetAsync(String fullUrl) {
+        return rawGetAsync(fullUrl, DEFAULT_ASYNC_TIMEOUT);
+    }
+    
+    public CompletableFuture<String> rawGetAsync(String fullUrl, Duration timeout) {
+        return executeGetAsync(fullUrl, timeout);
+    }
+    
+    public CompletableFuture<String> postAsync(String endpoint, Object data) {
+        return postAsync(endpoint, data, DEFAULT_ASYNC_TIMEOUT);
+    }
+    
+    public CompletableFuture<String> postAsync(String endpoint, Object data, Duration timeout) {
+        cache.invalidate(baseUrl + endpoint);
+        HttpPost request = new HttpPost(baseUrl + endpoint);
+        try {
+            request.setEntity(new StringEntity(objectMapper.writeValueAsString(data), ContentType.APPLICATION_JSON));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return executeAsync(request, timeout);
+    }
+    
+    /**
+     * Runs the request on the non-blocking client. Cancelling the returned
+     * future, or letting it time out, aborts the underlying exchange.
+     */
+    private CompletableFuture<String> executeAsync(HttpUriRequest request, Duration timeout) {
+        return executeAsync(request, timeout, response ->
+            response.getEntity() == null ? "" : EntityUtils.toString(response.getEntity()));
+    }
+    
+    private CompletableFuture<String> executeGetAsync(String url, Duration timeout) {
+        HttpCache.Entry cached = cache.lookup(url);
+        String fresh = cache.fresh(cached);
+        if (fresh != null) return CompletableFuture.completedFuture(fresh);
+        HttpGet request = new HttpGet(url);
+        HttpCache.addValidators(request, cached);
+        return executeAsync(request, timeout, response -> cache.complete(url, cached, response));
+    }
+    
+    @FunctionalInterface
+    private interface BodyReader {
+        String read(HttpResponse response) throws IOException;
+    }
+    
+    private CompletableFuture<String> executeAsync(HttpUriRequest request, Duration timeout, BodyReader reader) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Future<HttpResponse> exchange = asyncClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    result.complete(reader.read(response));
+                } catch (IOException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+            
+            @Override
+            public void failed(Exception ex) {
+                result.completeExceptionally(ex);
+            }
+            
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        result.whenComplete((body, error) -> {
+            if (error != null) exchange.cancel(true);
+        });
+        return result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Returns a future that completes on the JavaFX application thread.
+     * Cancelling it also cancels the source request.
+     */
+    public static <T> CompletableFuture<T> onFxThread(CompletableFuture<T> source) {
+        CompletableFuture<T> fx = new CompletableFuture<>();
+        source.whenComplete((value, error) -> Platform.runLater(() -> {
+            if (error != null) fx.completeExceptionally(error);
+            else fx.complete(value);
+        }));
+        fx.whenComplete((value, error) -> {
+            if (fx.isCancelled()) source.cancel(true);
+        });
+        return fx;
+    }
+    
+    /** Strips the CompletionException wrapper added by dependent stages. */
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
+    /** Snapshot of leased / available / pending connections across all routes. */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+    
+    public PoolStats getAsyncPoolStats() {
+        return asyncConnectionManager.getTotalStats();
+    }
+    
+    /** Hit / revalidation / miss counters of the GET response cache. */
+    public HttpCache.Stats getCacheStats() {
+        return cache.stats();
+    }
+    
+    /** Drops cached responses under {@code prefix}, an endpoint or a full URL. */
+    public void invalidateCache(String prefix) {
+        cache.invalidatePrefix(prefix.startsWith("http") ? prefix : baseUrl + prefix);
+    }
+    
+    public void clearCache() {
+        cache.clear();
+    }
+    
+    public void shutdown() {
+        try {
+            asyncClient.close();
+            httpClient.close();
+        } catch (IOException e) {
+            System.err.println("Error closing HTTP clients: " + e.getMessage());
+        }
     }
     
     private void showError(String message) {
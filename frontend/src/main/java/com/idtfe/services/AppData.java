@@ -0,0 +1,22 @@
+package com.idtfe.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Location of the application's own files (indexes, caches). Defaults to
+ * {@code ~/.idtfe}; override with {@code -Didtfe.dataDir=...}.
+ */
+public final class AppData {
+    private static final Path BASE = Path.of(System.getProperty("idtfe.dataDir",
+        Path.of(System.getProperty("user.home"), ".idtfe").toString()));
+
+    private AppData() {
+    }
+
+    /** The named subdirectory of the data directory, created if needed. */
+    public static Path dir(String name) throws IOException {
+        return Files.createDirectories(BASE.resolve(name));
+    }
+}
@@ -0,0 +1,199 @@
+package com.idtfe.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local copies of GitHub file contents, stored by git blob SHA (the
+ * {@code sha} of a contents entry) under {@code ~/.idtfe/blobs}. A blob's
+ * name is the hash of its bytes, so an entry never goes stale: a changed
+ * file simply has a new SHA. Every read re-hashes the bytes and drops a
+ * blob that no longer matches its name; downloads are checked the same way
+ * before they are stored.
+ *
+ * <p>The store is bounded by {@code idtfe.blobs.maxBytes}; the least
+ * recently read blobs are deleted first.
+ */
+public final class BlobStore {
+    private static BlobStore instance;
+
+    private static final long MAX_BYTES = Long.getLong("idtfe.blobs.maxBytes", 256L * 1024 * 1024);
+    // Smaller blobs are read into the heap; mapping costs more than it saves at this size
+    private static final int MAP_THRESHOLD = 64 * 1024;
+    private static final int DETECT_BYTES = 64 * 1024;
+    private static final Pattern SHA = Pattern.compile("[0-9a-f]{40}");
+
+    private final Path dir;
+    private long bytes = -1; // total size on disk, counted on first write; guarded by this
+
+    private BlobStore(Path dir) {
+        this.dir = dir;
+    }
+
+    public static synchronized BlobStore getInstance() throws IOException {
+        if (instance == null) {
+            instance = new BlobStore(AppData.dir("blobs"));
+        }
+        return instance;
+    }
+
+    /**
+     * Text of blob {@code sha}, read locally when present and otherwise
+     * downloaded from {@code downloadUrl} and stored. Without a valid SHA
+     * the file is just downloaded.
+     */
+    public String text(String sha, String downloadUrl) throws IOException {
+        ByteBuffer blob = sha != null && SHA.matcher(sha).matches() ? read(sha) : null;
+        return decode(blob != null ? blob : ByteBuffer.wrap(download(sha, downloadUrl)));
+    }
+
+    /** Downloads and stores blob {@code sha} ahead of time unless it is already stored. */
+    public void prefetch(String sha, String downloadUrl) throws IOException {
+        if (!contains(sha)) download(sha, downloadUrl);
+    }
+
+    private byte[] download(String sha, String downloadUrl) throws IOException {
+        byte[] downloaded = ApiClient.getInstance().rawGetBytes(downloadUrl);
+        // A mismatch means the file changed since it was listed, or is not a plain blob (e.g. LFS)
+        if (sha != null && sha.equals(gitSha(ByteBuffer.wrap(downloaded)))) write(sha, downloaded);
+        return downloaded;
+    }
+
+    /** Whether blob {@code sha} is stored locally (without verifying it). */
+    public boolean contains(String sha) {
+        return sha != null && SHA.matcher(sha).matches() && Files.exists(path(sha));
+    }
+
+    /** The verified bytes of blob {@code sha}, or null if it is missing or damaged. */
+    ByteBuffer read(String sha) {
+        Path file = path(sha);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer blob;
+            if (size >= MAP_THRESHOLD) {
+                blob = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                blob = ByteBuffer.allocate((int) size);
+                while (blob.hasRemaining() && channel.read(blob) >= 0) {
+                    // keep reading
+                }
+                blob.flip();
+            }
+            if (!sha.equals(gitSha(blob))) {
+                System.err.println("Discarding damaged blob " + sha);
+                delete(file);
+                return null;
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return blob;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Could not read blob " + sha + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Stores verified bytes under their SHA, then trims the store back under its limit. */
+    void write(String sha, byte[] content) {
+        Path file = path(sha);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, content);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                if (bytes < 0) bytes = totalSize();
+                else bytes += content.length;
+                if (bytes > MAX_BYTES) evict();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not store blob " + sha + ": " + e.getMessage());
+        }
+    }
+
+    /** Deletes the least recently read blobs until the store is at 90% of its limit. */
+    private void evict() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir, 2)) {
+            files = walk.filter(Files::isRegularFile)
+                .sorted(Comparator.comparingLong(BlobStore::lastModified))
+                .toList();
+        }
+        for (Path file : files) {
+            if (bytes <= MAX_BYTES * 9 / 10) break;
+            long size = Files.size(file);
+            if (delete(file)) bytes -= size;
+        }
+    }
+
+    private long totalSize() throws IOException {
+        try (Stream<Path> walk = Files.walk(dir, 2)) {
+            return walk.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        }
+    }
+
+    /** Same layout as git's object directory: {@code ab/cdef...}. */
+    private Path path(String sha) {
+        return dir.resolve(sha.substring(0, 2)).resolve(sha.substring(2));
+    }
+
+    /** The git blob id of {@code content}: SHA-1 of {@code "blob <size>\0"} followed by the bytes. */
+    static String gitSha(ByteBuffer content) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            sha1.update(("blob " + content.remaining() + "\0").getBytes(StandardCharsets.US_ASCII));
+            sha1.update(content.duplicate());
+            return HexFormat.of().formatHex(sha1.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Decodes in the charset the bytes are in, dropping a BOM and keeping line endings as they are. */
+    private static String decode(ByteBuffer blob) {
+        byte[] head = new byte[Math.min(blob.remaining(), DETECT_BYTES)];
+        blob.duplicate().get(head);
+        TextEncoding encoding = TextEncoding.detect(head, head.length, head.length == blob.remaining());
+        ByteBuffer body = blob.duplicate();
+        if (encoding.bom()) body.position(body.position() + encoding.bomBytes().length);
+        return encoding.charset().decode(body).toString();
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            return false; // still mapped elsewhere on some platforms; retried on the next eviction
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.idtfe.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Formats source text of one language. Implementations are stateless and
+ * run on a worker thread against a document snapshot; they throw
+ * {@link IllegalArgumentException} with a line number when the text cannot
+ * be parsed well enough to format.
+ *
+ * <p>Formatters are looked up by the Web IDE's file type names; more can be
+ * added with {@link #register}.
+ */
+public interface CodeFormatter {
+    /** One level of indentation; {@code -Didtfe.format.indent=N} spaces, 2 by default. */
+    String INDENT = " ".repeat(Integer.getInteger("idtfe.format.indent", 2));
+
+    String format(CharSequence text);
+
+    /**
+     * Formats {@code text} as if nested {@code levels} deep, e.g. a script
+     * inside an HTML element. Formatters that keep some lines exactly as
+     * they were (template literals, comments) override this so those lines
+     * are not indented.
+     */
+    default String format(CharSequence text, int levels) {
+        String formatted = format(text);
+        if (levels == 0) return formatted;
+        StringBuilder out = new StringBuilder(formatted.length() + formatted.length() / 4);
+        for (String line : formatted.split("\n", -1)) {
+            if (!line.isEmpty()) out.append(INDENT.repeat(levels)).append(line);
+            out.append('\n');
+        }
+        out.setLength(out.length() - 1);
+        return out.toString();
+    }
+
+    /** The formatter for a file type such as "json", or null if there is none. */
+    static CodeFormatter forType(String type) {
+        return type == null ? null : Registry.FORMATTERS.get(type.toLowerCase());
+    }
+
+    static void register(String type, CodeFormatter formatter) {
+        Registry.FORMATTERS.put(type.toLowerCase(), formatter);
+    }
+
+    /** Holds the registered formatters; interfaces cannot have private static fields. */
+    final class Registry {
+        private static final Map<String, CodeFormatter> FORMATTERS = new ConcurrentHashMap<>(Map.of(
+            "json", new JsonFormatter(),
+            "css", new CssFormatter(),
+            "javascript", new ScriptFormatter(),
+            "html", new MarkupFormatter(true),
+            "xml", new MarkupFormatter(false)));
+
+        private Registry() {
+        }
+    }
+}
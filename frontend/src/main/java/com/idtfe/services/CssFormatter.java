@@ -0,0 +1,129 @@
+package com.idtfe.services;
+
+/**
+ * Lays out CSS one declaration per line: selectors and at-rules open a
+ * block with {@code " {"}, declarations are indented by nesting depth and
+ * top-level rules are separated by a blank line. Strings, comments and
+ * parentheses (e.g. {@code url(data:...;...)}) are copied as they are.
+ */
+final class CssFormatter implements CodeFormatter {
+
+    @Override
+    public String format(CharSequence text) {
+        return format(text, 0);
+    }
+
+    /** Only the first line of a multi-line comment is indented; the rest is copied as it is. */
+    @Override
+    public String format(CharSequence text, int levels) {
+        int length = text.length();
+        StringBuilder out = new StringBuilder(length + length / 4);
+        StringBuilder pending = new StringBuilder();
+        int depth = 0;
+        int parens = 0;
+        int line = 1;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') line++;
+            if (c == '/' && i + 1 < length && text.charAt(i + 1) == '*') {
+                int end = indexOf(text, "*/", i + 2);
+                if (end < 0) throw new IllegalArgumentException("Line " + line + ": unclosed comment");
+                String comment = text.subSequence(i, end + 2).toString();
+                line += count(comment, '\n');
+                if (pending.toString().isBlank()) {
+                    emit(out, levels + depth, comment);
+                    pending.setLength(0);
+                } else {
+                    pending.append(comment);
+                }
+                i = end + 1;
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                int end = i + 1;
+                while (end < length && text.charAt(end) != c && text.charAt(end) != '\n') {
+                    if (text.charAt(end) == '\\') end++;
+                    end++;
+                }
+                if (end >= length || text.charAt(end) != c) {
+                    throw new IllegalArgumentException("Line " + line + ": unterminated string");
+                }
+                pending.append(text, i, end + 1);
+                i = end;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                if (pending.length() > 0 && pending.charAt(pending.length() - 1) != ' ') pending.append(' ');
+                continue;
+            }
+            if (parens > 0) {
+                if (c == '(') parens++;
+                else if (c == ')') parens--;
+                pending.append(c);
+                continue;
+            }
+            switch (c) {
+                case '(' -> {
+                    parens++;
+                    pending.append(c);
+                }
+                case '{' -> {
+                    emit(out, levels + depth, pending.toString().strip() + " {");
+                    pending.setLength(0);
+                    depth++;
+                }
+                case ';' -> {
+                    String statement = pending.toString().strip();
+                    if (!statement.isEmpty()) emit(out, levels + depth, declaration(statement, depth) + ";");
+                    pending.setLength(0);
+                }
+                case '}' -> {
+                    if (depth == 0) throw new IllegalArgumentException("Line " + line + ": unexpected '}'");
+                    String statement = pending.toString().strip();
+                    if (!statement.isEmpty()) emit(out, levels + depth, declaration(statement, depth) + ";");
+                    pending.setLength(0);
+                    depth--;
+                    emit(out, levels + depth, "}");
+                    if (depth == 0) out.append('\n');
+                }
+                default -> pending.append(c);
+            }
+        }
+        if (depth > 0) throw new IllegalArgumentException("Line " + line + ": missing '}'");
+        String rest = pending.toString().strip();
+        if (!rest.isEmpty()) emit(out, levels, rest);
+        while (out.length() > 1 && out.charAt(out.length() - 1) == '\n' && out.charAt(out.length() - 2) == '\n') {
+            out.setLength(out.length() - 1);
+        }
+        return out.toString();
+    }
+
+    /** Writes {@code name: value} for a declaration inside a block. */
+    private static String declaration(String statement, int depth) {
+        int colon = statement.indexOf(':');
+        if (depth == 0 || colon <= 0 || statement.startsWith("@")) return statement;
+        return statement.substring(0, colon).stripTrailing() + ": " + statement.substring(colon + 1).stripLeading();
+    }
+
+    private static void emit(StringBuilder out, int depth, String line) {
+        for (int d = 0; d < depth; d++) out.append(INDENT);
+        out.append(line).append('\n');
+    }
+
+    private static int indexOf(CharSequence text, String target, int from) {
+        for (int i = from; i + target.length() <= text.length(); i++) {
+            if (text.charAt(i) == target.charAt(0) && text.subSequence(i, i + target.length()).toString().equals(target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int count(String text, char c) {
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == c) n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,15 @@
+package com.idtfe.services;
+
+/**
+ * One problem found by a lint rule. {@code line} and {@code column} are
+ * 1-based; {@code rule} is the id of the rule that reported it.
+ */
+public record Diagnostic(int line, int column, Severity severity, String rule, String message) {
+
+    public enum Severity { ERROR, WARNING, INFO }
+
+    /** The same diagnostic moved to {@code line}; line rules report line 0 and the engine places them. */
+    public Diagnostic atLine(int line) {
+        return new Diagnostic(line, column, severity, rule, message);
+    }
+}
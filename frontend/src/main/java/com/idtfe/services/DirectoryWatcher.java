@@ -0,0 +1,153 @@
+package com.idtfe.services;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a changing set of directories (not recursively) and reports
+ * changes in batches. Events are collected until the file system has been
+ * quiet for a short while, or a maximum delay has passed, so a burst such
+ * as a branch checkout arrives as one batch with one entry per path.
+ */
+public class DirectoryWatcher implements AutoCloseable {
+    private static final long QUIET_MS = Long.getLong("idtfe.watch.quietMs", 100);
+    private static final long MAX_DELAY_MS = Long.getLong("idtfe.watch.maxDelayMs", 1000);
+
+    public enum Kind { CREATED, DELETED, MODIFIED, OVERFLOW }
+
+    /** A change to {@code path}; for {@link Kind#OVERFLOW} the path is the watched directory. */
+    public record Change(Kind kind, Path path) {}
+
+    @FunctionalInterface
+    public interface Listener {
+        /** Called on the watcher thread. */
+        void onChanges(List<Change> changes);
+    }
+
+    private final WatchService service;
+    private final Listener listener;
+    private final Map<Path, WatchKey> keys = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public DirectoryWatcher(Listener listener) throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.listener = listener;
+        TaskExecutor.getInstance().startThread("idtfe-watcher", this::pollLoop);
+    }
+
+    /**
+     * Starts watching {@code dir}. Returns whether it is watched, which is
+     * false when the OS is out of watches or the directory is unreadable.
+     */
+    public boolean register(Path dir) {
+        if (closed) return false;
+        return keys.computeIfAbsent(dir, d -> {
+            try {
+                return d.register(service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException | ClosedWatchServiceException e) {
+                return null;
+            }
+        }) != null;
+    }
+
+    public void unregister(Path dir) {
+        WatchKey key = keys.remove(dir);
+        if (key != null) key.cancel();
+    }
+
+    public boolean isWatching(Path dir) {
+        return keys.containsKey(dir);
+    }
+
+    public int getWatchedCount() {
+        return keys.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        keys.clear();
+        try {
+            service.close();
+        } catch (IOException e) {
+            // nothing left to release
+        }
+    }
+
+    private void pollLoop() {
+        try {
+            while (!closed) {
+                WatchKey key = service.take();
+                Map<Path, Kind> batch = new LinkedHashMap<>();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_MS);
+                while (key != null) {
+                    drain(key, batch);
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) break;
+                    key = service.poll(Math.min(QUIET_MS, remaining), TimeUnit.MILLISECONDS);
+                }
+                if (batch.isEmpty() || closed) continue;
+                List<Change> changes = new ArrayList<>(batch.size());
+                batch.forEach((path, kind) -> changes.add(new Change(kind, path)));
+                try {
+                    listener.onChanges(changes);
+                } catch (RuntimeException e) {
+                    // a failing listener must not stop the watcher
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void drain(WatchKey key, Map<Path, Kind> batch) {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                batch.put(dir, Kind.OVERFLOW);
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            Kind kind = event.kind() == StandardWatchEventKinds.ENTRY_CREATE ? Kind.CREATED
+                : event.kind() == StandardWatchEventKinds.ENTRY_DELETE ? Kind.DELETED
+                : Kind.MODIFIED;
+            merge(batch, path, kind);
+        }
+        if (!key.reset()) {
+            // The directory is gone or no longer accessible
+            keys.remove(dir, key);
+        }
+    }
+
+    private static void merge(Map<Path, Kind> batch, Path path, Kind kind) {
+        Kind previous = batch.get(path);
+        if (previous == null) {
+            batch.put(path, kind);
+        } else if (previous == Kind.OVERFLOW) {
+            // the whole directory is rescanned anyway
+        } else if (previous == Kind.CREATED && kind == Kind.DELETED) {
+            batch.remove(path); // came and went within the batch
+        } else if (previous == Kind.DELETED && kind == Kind.CREATED) {
+            batch.put(path, Kind.MODIFIED); // replaced, possibly by another type
+        } else if (!(previous == Kind.CREATED && kind == Kind.MODIFIED)) {
+            batch.put(path, kind);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.idtfe.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Crash-recovery log of the unsaved edits in one open document. The FX
+ * thread only queues each edit; a single background writer appends the
+ * queued edits in batches, so typing never waits for the disk and each
+ * write costs about the size of the edit. A journal file exists only while
+ * the document has unsaved changes: it starts with a snapshot of the text
+ * the edits apply to, is rewritten as a fresh snapshot once the edits
+ * outgrow it, and is deleted when the document is saved. Journals left
+ * behind by a crash (or by closing a tab with unsaved work) are listed by
+ * {@link #pending()} on the next start. A journal in use holds a lock on a
+ * {@code .lock} file beside it, so other running instances leave it alone.
+ */
+public final class EditJournal {
+    private static final int MAGIC = 0x49444A4C; // "IDJL"
+    private static final int VERSION = 1;
+    private static final byte FILE = 'F';
+    private static final byte SNAPSHOT = 'S';
+    private static final byte EDIT = 'E';
+
+    private static final long FLUSH_MS = Long.getLong("idtfe.journal.flushMs", 250);
+    // Rewrite the journal as a snapshot once its edits take more than this and more than the snapshot itself
+    private static final long COMPACT_BYTES = Long.getLong("idtfe.journal.compactBytes", 1024 * 1024);
+
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "idtfe-journal");
+        t.setDaemon(true);
+        return t;
+    });
+    // Journals owned by this process. pending() checks these instead of their locks: closing
+    // another channel to a lock file would release this process's lock on it.
+    private static final Set<Path> LIVE = ConcurrentHashMap.newKeySet();
+
+    /** An unsaved document found on disk. {@code file} is null for buffers not backed by a local file. */
+    public record Recovery(Path journal, String owner, Path file, String label, String text, long modified) {
+    }
+
+    private enum Kind { RESET, ADOPT, FILE, EDIT, SAVED, CLOSE }
+
+    private record Op(Kind kind, int offset, int removed, String inserted, PieceTable text, Path file, String label) {
+    }
+
+    private final Path path;
+    private final String owner;
+    private final ConcurrentLinkedQueue<Op> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final FileLock lock;
+
+    // Writer thread only
+    private PieceTable base = PieceTable.empty();
+    private PieceTable latest = base;
+    private Path file;
+    private String label = "";
+    private DataOutputStream out;
+    private long snapshotBytes;
+    private long editBytes;
+
+    private EditJournal(Path path, String owner) throws IOException {
+        this.path = path;
+        this.owner = owner;
+        if (!LIVE.add(path)) throw new IOException("Journal already in use: " + path.getFileName());
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = channel.tryLock();
+            if (lock == null) throw new IOException("Journal in use by another instance: " + path.getFileName());
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) channel.close();
+            LIVE.remove(path);
+            throw e;
+        }
+    }
+
+    /** A new, empty journal for a document shown by {@code owner} (e.g. "Web IDE"). */
+    public static EditJournal open(String owner) throws IOException {
+        return new EditJournal(AppData.dir("journal").resolve(UUID.randomUUID() + ".journal"), owner);
+    }
+
+    /**
+     * Takes over a recovered journal: its file stays on disk until the
+     * restored document is saved or edited again. Fails if another
+     * instance took it over first.
+     */
+    public static EditJournal resume(Recovery recovery) throws IOException {
+        EditJournal journal = new EditJournal(recovery.journal(), recovery.owner());
+        PieceTable text = PieceTable.of(recovery.text());
+        journal.enqueue(new Op(Kind.FILE, 0, 0, null, null, recovery.file(), recovery.label()));
+        journal.enqueue(new Op(Kind.ADOPT, 0, 0, null, text, null, null));
+        return journal;
+    }
+
+    /** Names the file the document is saved to ({@code null} if none) and how to describe it. */
+    public void describe(Path file, String label) {
+        enqueue(new Op(Kind.FILE, 0, 0, null, null, file, label));
+    }
+
+    /** The document now holds {@code text} with nothing to recover, e.g. after opening a file. */
+    public void reset(PieceTable text) {
+        enqueue(new Op(Kind.RESET, 0, 0, null, text, null, null));
+    }
+
+    /** Records that {@code [offset, offset + removed)} was replaced by {@code inserted}, giving {@code after}. */
+    public void edit(int offset, int removed, String inserted, PieceTable after) {
+        if (removed == 0 && inserted.isEmpty()) return;
+        enqueue(new Op(Kind.EDIT, offset, removed, inserted, after, null, null));
+    }
+
+    /** {@code text} was saved; the journal is dropped until the next edit. */
+    public void saved(PieceTable text) {
+        enqueue(new Op(Kind.SAVED, 0, 0, null, text, null, null));
+    }
+
+    /**
+     * Stops journaling. Unsaved changes stay on disk to be offered for
+     * recovery; a clean document leaves nothing behind.
+     */
+    public void close() {
+        enqueue(new Op(Kind.CLOSE, 0, 0, null, null, null, null));
+    }
+
+    /** Unsaved documents left by earlier runs, newest first. */
+    public static List<Recovery> pending() throws IOException {
+        List<Recovery> found = new ArrayList<>();
+        try (Stream<Path> files = Files.list(AppData.dir("journal"))) {
+            for (Path journal : (Iterable<Path>) files::iterator) {
+                if (!journal.toString().endsWith(".journal") || LIVE.contains(journal)) continue;
+                try (FileChannel channel = FileChannel.open(lockFile(journal), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE);
+                     FileLock held = channel.tryLock()) {
+                    if (held == null) continue; // written by another running instance
+                    Recovery recovery = read(journal);
+                    if (recovery != null) found.add(recovery);
+                } catch (OverlappingFileLockException e) {
+                    // resumed by this process since the LIVE check
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(Recovery::modified).reversed());
+        return found;
+    }
+
+    /** Deletes a recovered journal the user chose not to restore. */
+    public static void discard(Recovery recovery) {
+        WRITER.execute(() -> {
+            try {
+                Files.deleteIfExists(recovery.journal());
+                Files.deleteIfExists(lockFile(recovery.journal()));
+            } catch (IOException e) {
+                // tried again at the next start
+            }
+        });
+    }
+
+    private void enqueue(Op op) {
+        queue.add(op);
+        if (scheduled.compareAndSet(false, true)) {
+            // Later ops join this batch until it runs
+            WRITER.schedule(this::flush, op.kind() == Kind.EDIT ? FLUSH_MS : 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+        scheduled.set(false);
+        try {
+            Op op;
+            while ((op = queue.poll()) != null) {
+                apply(op);
+            }
+            if (out != null) {
+                out.flush();
+                if (editBytes > COMPACT_BYTES && editBytes > snapshotBytes) compact();
+            }
+        } catch (IOException e) {
+            // Journaling is best effort; start over with the next edit
+            closeStream();
+            base = latest;
+        }
+    }
+
+    private void apply(Op op) throws IOException {
+        switch (op.kind()) {
+            case RESET, SAVED -> {
+                closeStream();
+                Files.deleteIfExists(path);
+                base = op.text();
+                latest = base;
+            }
+            case ADOPT -> {
+                // The recovered file already holds this text; the first edit rewrites it
+                base = op.text();
+                latest = base;
+            }
+            case FILE -> {
+                file = op.file();
+                label = op.label() != null ? op.label() : "";
+                if (out != null) writeFile(out);
+            }
+            case EDIT -> {
+                if (out == null) start(base);
+                byte[] inserted = op.inserted().getBytes(StandardCharsets.UTF_8);
+                out.writeByte(EDIT);
+                out.writeInt(op.offset());
+                out.writeInt(op.removed());
+                out.writeInt(inserted.length);
+                out.write(inserted);
+                editBytes += 13 + inserted.length;
+                latest = op.text();
+            }
+            case CLOSE -> {
+                closeStream();
+                try {
+                    Files.deleteIfExists(lockFile(path));
+                } finally {
+                    lock.channel().close();
+                    LIVE.remove(path);
+                }
+            }
+        }
+    }
+
+    private static Path lockFile(Path journal) {
+        return journal.resolveSibling(journal.getFileName() + ".lock");
+    }
+
+    /** Begins a journal file holding a snapshot of {@code text}. */
+    private void start(PieceTable text) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        writeHeader(out, text);
+        base = text;
+        latest = text;
+    }
+
+    private void writeHeader(DataOutputStream data, PieceTable text) throws IOException {
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeUTF(owner);
+        writeFile(data);
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        data.writeByte(SNAPSHOT);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+        snapshotBytes = bytes.length;
+        editBytes = 0;
+    }
+
+    private void writeFile(DataOutputStream data) throws IOException {
+        data.writeByte(FILE);
+        data.writeUTF(file != null ? file.toString() : "");
+        data.writeUTF(label);
+    }
+
+    /** Replaces the journal with a snapshot of the latest text, in one atomic rename. */
+    private void compact() throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            writeHeader(data, latest);
+        }
+        closeStream();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.APPEND)));
+        base = latest;
+    }
+
+    private void closeStream() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            // the journal is only as good as what reached the disk
+        }
+        out = null;
+    }
+
+    /** Replays a journal up to its last complete record; null if it is not a journal. */
+    private static Recovery read(Path journal) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            String owner = in.readUTF();
+            String file = "";
+            String label = "";
+            PieceTable text = null;
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    if (type == FILE) {
+                        file = in.readUTF();
+                        label = in.readUTF();
+                    } else if (type == SNAPSHOT) {
+                        int length = in.readInt();
+                        byte[] bytes = in.readNBytes(length);
+                        if (bytes.length < length) break;
+                        text = PieceTable.of(new String(bytes, StandardCharsets.UTF_8));
+                    } else if (type == EDIT && text != null) {
+                        int offset = in.readInt();
+                        int removed = in.readInt();
+                        int length = in.readInt();
+                        byte[] inserted = in.readNBytes(length);
+                        if (inserted.length < length || offset < 0 || removed < 0 || offset + removed > text.length()) break;
+                        text = text.replace(offset, offset + removed, new String(inserted, StandardCharsets.UTF_8));
+                    } else {
+                        break;
+                    }
+                }
+            } catch (EOFException e) {
+                // A crash can cut the last record short; everything before it stands
+            }
+            if (text == null) return null;
+            return new Recovery(journal, owner, file.isEmpty() ? null : Path.of(file), label, text.toString(),
+                Files.getLastModifiedTime(journal).toMillis());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -1,27 +1,202 @@
 package com.idtfe.services;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class EditorService {
+    // Files above this size open in the paged viewer instead of a text area
+    public static final long LARGE_FILE_BYTES = Long.getLong("idtfe.editor.largeFileBytes", 32L * 1024 * 1024);
+    // Flush saved files to the disk before replacing the original; off trades safety on power loss for speed
+    private static final boolean FSYNC = !"false".equals(System.getProperty("idtfe.editor.fsync"));
+    private static final int SAVE_CHUNK = 8192;
+
+    // Encoding each loaded file was read with, so saving writes it back the same way
+    private final Map<Path, TextEncoding> encodings = new ConcurrentHashMap<>();
+
     public String loadFile(String path) {
         try {
-            File f = new File(path);
-            if (!f.exists()) return null;
-            return new String(Files.readAllBytes(Paths.get(path)));
+            Path p = Paths.get(path);
+            if (!Files.exists(p)) return null;
+            return load(p);
         } catch (IOException e) {
             return null;
         }
     }
 
-    public boolean saveFile(String path, String content) {
+    /**
+     * Reads a text file in its detected encoding. Line breaks come back as
+     * {@code \n}; the BOM, charset and separator are remembered for {@link #save}.
+     */
+    public String load(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        TextEncoding encoding = TextEncoding.detect(bytes, bytes.length, true);
+        encodings.put(path.toAbsolutePath().normalize(), encoding);
+        return encoding.decode(bytes);
+    }
+
+    /** The encoding {@code path} was loaded with, else detected from the file, else the default. */
+    public TextEncoding encodingOf(Path path) {
+        TextEncoding known = encodings.get(path.toAbsolutePath().normalize());
+        if (known != null) return known;
         try {
-            Files.write(Paths.get(path), content.getBytes());
+            return Files.isRegularFile(path) ? TextEncoding.of(path) : TextEncoding.DEFAULT;
+        } catch (IOException e) {
+            return TextEncoding.DEFAULT;
+        }
+    }
+
+    /** True when {@code path} should be opened with {@link #openLargeFile} rather than loaded whole. */
+    public boolean isLargeFile(Path path) {
+        try {
+            return Files.size(path) > LARGE_FILE_BYTES;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Memory-maps {@code path} and starts indexing its lines in the background. */
+    public LargeFile openLargeFile(Path path) throws IOException {
+        return new LargeFile(path);
+    }
+
+    public boolean saveFile(String path, CharSequence content) {
+        try {
+            save(Paths.get(path), content);
             return true;
         } catch (IOException e) {
             return false;
         }
     }
+
+    /**
+     * Writes {@code content} to {@code path} in the file's encoding without
+     * ever leaving it half written: the text is encoded a chunk at a time into
+     * a temporary file next to it, flushed to disk, and then moved over the
+     * original in one step. On failure the original is untouched.
+     */
+    public void save(Path path, CharSequence content) throws IOException {
+        Path target = Files.exists(path) ? path.toRealPath() : path.toAbsolutePath();
+        TextEncoding encoding = encodingOf(target);
+        Path dir = target.getParent();
+        Path temp = dir.resolve("." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                write(out, content, encoding);
+                if (FSYNC) out.force(true);
+            }
+            copyPermissions(target, temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        if (FSYNC) syncDirectory(dir);
+        encodings.put(target.normalize(), encoding);
+        if (!target.equals(path.toAbsolutePath())) encodings.put(path.toAbsolutePath().normalize(), encoding);
+    }
+
+    private static void write(FileChannel out, CharSequence content, TextEncoding encoding) throws IOException {
+        CharsetEncoder encoder = encoding.charset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer bytes = ByteBuffer.allocate((int) (SAVE_CHUNK * 2 * encoder.maxBytesPerChar()));
+        if (encoding.bom()) bytes.put(encoding.bomBytes());
+        boolean crlf = encoding.lineSeparator().equals("\r\n");
+        char[] source = new char[SAVE_CHUNK];
+        // Room for every \n in a chunk to become \r\n, plus a carried-over char
+        char[] chunk = new char[SAVE_CHUNK * 2 + 1];
+        CharBuffer chars = CharBuffer.wrap(chunk);
+        int length = content.length();
+        char previous = 0;
+        for (int at = 0; at < length; at += SAVE_CHUNK) {
+            int n = Math.min(SAVE_CHUNK, length - at);
+            copyChars(content, at, at + n, source);
+            // Chars the encoder left over (half a surrogate pair) are already at the front
+            int size = chars.position();
+            for (int i = 0; i < n; i++) {
+                char c = source[i];
+                if (crlf && c == '\n' && previous != '\r') chunk[size++] = '\r';
+                chunk[size++] = c;
+                previous = c;
+            }
+            chars.position(size);
+            chars.flip();
+            encode(encoder, chars, bytes, out, false, at);
+            chars.compact();
+        }
+        chars.flip();
+        encode(encoder, chars, bytes, out, true, length);
+        while (encoder.flush(bytes).isOverflow()) drain(bytes, out);
+        drain(bytes, out);
+    }
+
+    private static void encode(CharsetEncoder encoder, CharBuffer chars, ByteBuffer bytes, FileChannel out,
+                               boolean endOfInput, int offset) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drain(bytes, out);
+            } else if (result.isError()) {
+                throw new IOException("Text near character " + offset + " cannot be saved as " + encoder.charset().name());
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void drain(ByteBuffer bytes, FileChannel out) throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) out.write(bytes);
+        bytes.clear();
+    }
+
+    private static void copyChars(CharSequence text, int start, int end, char[] dst) {
+        if (text instanceof String s) {
+            s.getChars(start, end, dst, 0);
+        } else if (text instanceof PieceTable p) {
+            p.getChars(start, end, dst, 0);
+        } else if (text instanceof StringBuilder b) {
+            b.getChars(start, end, dst, 0);
+        } else {
+            for (int i = start; i < end; i++) dst[i - start] = text.charAt(i);
+        }
+    }
+
+    private static void copyPermissions(Path from, Path to) {
+        PosixFileAttributeView source = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        PosixFileAttributeView copy = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+        if (source == null || copy == null || !Files.exists(from)) return;
+        try {
+            copy.setPermissions(source.readAttributes().permissions());
+        } catch (IOException e) {
+            // keep the default permissions of a new file
+        }
+    }
+
+    /** Makes the rename itself durable; not supported everywhere, so failures are ignored. */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // e.g. Windows cannot open a directory as a channel
+        }
+    }
 }
@@ -0,0 +1,302 @@
+package com.idtfe.services;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of the regular files under a project root: path to
+ * metadata, and file name to every path with that name. The index is built
+ * once in the background and then kept current by a {@link DirectoryWatcher},
+ * so lookups never touch the disk.
+ *
+ * <p>OS watches are limited (inotify's {@code max_user_watches}) and on
+ * macOS the JDK polls every watched directory, so only the shallowest
+ * {@code idtfe.index.maxWatches} directories are watched. The rest are
+ * listed again every {@code idtfe.index.rescanMs}.
+ */
+public class FileIndex implements AutoCloseable {
+    private static final int MAX_WATCHES = Integer.getInteger("idtfe.index.maxWatches", 2048);
+    private static final long RESCAN_MS = Long.getLong("idtfe.index.rescanMs", 30_000);
+
+    private static final ScheduledExecutorService RESCANS = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "idtfe-index-rescan");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    public record Entry(Path path, long size, long lastModified) {}
+
+    @FunctionalInterface
+    public interface Listener {
+        /** Called on the indexing or watcher thread; {@code entry} is null when the file was removed. */
+        void onFileChanged(Path path, Entry entry);
+    }
+
+    private final Path root;
+    private final IgnoreRules rules;
+    private final Map<Path, Entry> byPath = new ConcurrentHashMap<>();
+    // Keyed by lower-cased file name so lookups are case-insensitive
+    private final Map<String, Set<Path>> byName = new ConcurrentHashMap<>();
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    // Indexed directories without a watch, kept current by rescans
+    private final Set<Path> unwatched = ConcurrentHashMap.newKeySet();
+    private final DirectoryWatcher watcher;
+    private final CompletableFuture<Integer> ready;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledFuture<?> rescans;
+
+    private FileIndex(Path root, IgnoreRules rules) {
+        this.root = root;
+        this.rules = rules;
+        DirectoryWatcher w;
+        try {
+            w = new DirectoryWatcher(this::onChanges);
+        } catch (IOException | UnsupportedOperationException e) {
+            w = null; // index is built once and not kept current
+        }
+        this.watcher = w;
+        this.ready = TaskExecutor.getInstance().supplyAsync(() -> {
+            scan(root);
+            return byPath.size();
+        });
+        this.rescans = RESCANS.scheduleWithFixedDelay(this::rescanUnwatched, RESCAN_MS, RESCAN_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Starts indexing {@code root} in the background. */
+    public static FileIndex build(Path root, IgnoreRules rules) {
+        return new FileIndex(root, rules);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /** Completes with the number of indexed files once the initial scan is done. */
+    public CompletableFuture<Integer> whenReady() {
+        return ready;
+    }
+
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
+    public int size() {
+        return byPath.size();
+    }
+
+    /** Snapshot of every indexed file. */
+    public Collection<Entry> entries() {
+        return List.copyOf(byPath.values());
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Metadata for an indexed file, or null. */
+    public Entry get(Path path) {
+        return byPath.get(path);
+    }
+
+    /** Every indexed file named {@code name}, ignoring case, sorted by path. */
+    public List<Path> findByName(String name) {
+        Set<Path> paths = byName.get(name.toLowerCase(Locale.ROOT));
+        if (paths == null) return List.of();
+        List<Path> result = new ArrayList<>(paths);
+        result.sort(null);
+        return result;
+    }
+
+    /** Re-reads {@code path} from disk, e.g. right after the IDE wrote it. */
+    public void refresh(Path path) {
+        if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            scan(path);
+        } else if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+            if (directories.contains(path)) remove(path); // a directory was replaced by a file
+            if (!isIgnored(path, false)) {
+                try {
+                    put(path, Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+                } catch (IOException e) {
+                    remove(path);
+                }
+            }
+        } else {
+            remove(path);
+        }
+    }
+
+    @Override
+    public void close() {
+        ready.cancel(true);
+        rescans.cancel(true);
+        if (watcher != null) watcher.close();
+    }
+
+    private boolean isIgnored(Path path, boolean directory) {
+        return path.startsWith(root) && rules.isIgnored(root.relativize(path), directory);
+    }
+
+    private void scan(Path start) {
+        List<Path> found = new ArrayList<>();
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (Thread.currentThread().isInterrupted()) return FileVisitResult.TERMINATE;
+                    if (!dir.equals(root) && isIgnored(dir, true)) return FileVisitResult.SKIP_SUBTREE;
+                    directories.add(dir);
+                    found.add(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && !isIgnored(file, false)) put(file, attrs);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            // partial index; the watcher fills in later changes
+        }
+        // Shallow directories first: they change more often than deep build output
+        found.sort(Comparator.comparingInt(Path::getNameCount));
+        for (Path dir : found) {
+            boolean room = watcher != null && (watcher.isWatching(dir) || watcher.getWatchedCount() < MAX_WATCHES);
+            if (room && watcher.register(dir)) unwatched.remove(dir);
+            else unwatched.add(dir);
+        }
+    }
+
+    /** Lists every unwatched directory again and applies what changed since the last look. */
+    private void rescanUnwatched() {
+        if (unwatched.isEmpty() || !ready.isDone()) return;
+        // Known files and subdirectories of each unwatched directory, to find deletions
+        Map<Path, Set<Path>> known = new HashMap<>();
+        for (Path path : byPath.keySet()) {
+            if (unwatched.contains(path.getParent())) known.computeIfAbsent(path.getParent(), d -> new HashSet<>()).add(path);
+        }
+        for (Path dir : directories) {
+            if (unwatched.contains(dir.getParent())) known.computeIfAbsent(dir.getParent(), d -> new HashSet<>()).add(dir);
+        }
+        for (Path dir : List.copyOf(unwatched)) {
+            if (Thread.currentThread().isInterrupted()) return;
+            if (!unwatched.contains(dir)) continue; // went away with a parent in this round
+            if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+                remove(dir);
+                continue;
+            }
+            Set<Path> gone = known.getOrDefault(dir, new HashSet<>());
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+                for (Path child : children) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue; // deleted while listing
+                    }
+                    if (attrs.isDirectory()) {
+                        if (directories.contains(child)) gone.remove(child);
+                        else if (!isIgnored(child, true)) scan(child);
+                    } else if (attrs.isRegularFile() && !isIgnored(child, false)) {
+                        gone.remove(child);
+                        Entry entry = byPath.get(child);
+                        // Only changed files reach the listeners, which may re-read them
+                        if (entry == null || entry.size() != attrs.size() || entry.lastModified() != attrs.lastModifiedTime().toMillis()) {
+                            put(child, attrs);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                continue; // unreadable for now; try again next round
+            }
+            gone.forEach(this::remove);
+        }
+    }
+
+    private void put(Path path, BasicFileAttributes attrs) {
+        Entry entry = new Entry(path, attrs.size(), attrs.lastModifiedTime().toMillis());
+        byPath.put(path, entry);
+        byName.computeIfAbsent(key(path), k -> ConcurrentHashMap.newKeySet()).add(path);
+        for (Listener listener : listeners) listener.onFileChanged(path, entry);
+    }
+
+    private void remove(Path path) {
+        if (directories.remove(path)) {
+            // A directory went away: drop everything below it
+            if (watcher != null) watcher.unregister(path);
+            unwatched.remove(path);
+            directories.removeIf(dir -> {
+                if (!dir.startsWith(path)) return false;
+                if (watcher != null) watcher.unregister(dir);
+                unwatched.remove(dir);
+                return true;
+            });
+            for (Path indexed : new ArrayList<>(byPath.keySet())) {
+                if (indexed.startsWith(path)) removeFile(indexed);
+            }
+        } else {
+            removeFile(path);
+        }
+    }
+
+    private void removeFile(Path path) {
+        if (byPath.remove(path) == null) return;
+        byName.computeIfPresent(key(path), (k, paths) -> {
+            paths.remove(path);
+            return paths.isEmpty() ? null : paths;
+        });
+        for (Listener listener : listeners) listener.onFileChanged(path, null);
+    }
+
+    private static String key(Path path) {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT);
+    }
+
+    private void onChanges(List<DirectoryWatcher.Change> changes) {
+        for (DirectoryWatcher.Change change : changes) {
+            Path path = change.path();
+            if (change.kind() == DirectoryWatcher.Kind.OVERFLOW) {
+                // Events were lost: drop vanished entries of that directory and rescan it
+                for (Path indexed : new ArrayList<>(byPath.keySet())) {
+                    if (path.equals(indexed.getParent()) && !Files.exists(indexed)) removeFile(indexed);
+                }
+                scan(path);
+            } else if (!directories.contains(path) || !Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                // Known directories report their own changes; only new ones need a scan
+                refresh(path);
+            }
+        }
+    }
+}
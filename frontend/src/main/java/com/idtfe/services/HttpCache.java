@@ -0,0 +1,358 @@
+package com.idtfe.services;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.util.EntityUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Private HTTP cache for GET responses. Bodies are kept with their
+ * validators ({@code ETag}, {@code Last-Modified}) and the freshness the
+ * server gave them ({@code Cache-Control: max-age}, {@code Expires}). A
+ * fresh entry is answered without a request; a stale one is revalidated
+ * with {@code If-None-Match}/{@code If-Modified-Since}, and a 304 reuses
+ * the stored body. {@code no-store} responses are never kept and
+ * {@code no-cache} ones are always revalidated.
+ *
+ * <p>Memory is bounded by {@code idtfe.http.cacheBytes} with least recently
+ * used eviction. With {@code -Didtfe.http.cacheDisk=true} entries are also
+ * written under {@code ~/.idtfe/http-cache} so they can be revalidated in
+ * the next session instead of downloaded again.
+ */
+public class HttpCache {
+    private static final long MAX_BYTES = Long.getLong("idtfe.http.cacheBytes", 32L * 1024 * 1024);
+    private static final boolean DISK = Boolean.getBoolean("idtfe.http.cacheDisk");
+    private static final long MAX_DISK_BYTES = Long.getLong("idtfe.http.cacheDiskBytes", 128L * 1024 * 1024);
+    private static final int DISK_MAGIC = 0x49444843; // "IDHC"
+
+    /** Counters since startup; {@code revalidated} counts 304s that saved a download. */
+    public record Stats(long hits, long revalidated, long misses, long stored, long evictions, int entries, long bytes) {
+    }
+
+    /** A stored response. Fresh until {@code storedAt + freshForMs} unless {@code noCache}. */
+    record Entry(String url, String body, String etag, String lastModified, long storedAt, long freshForMs, boolean noCache) {
+
+        boolean isFresh(long now) {
+            return !noCache && now - storedAt < freshForMs;
+        }
+
+        long size() {
+            return 2L * (url.length() + body.length()) + 128;
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true); // guarded by this
+    private long bytes;
+    private final AtomicBoolean diskTrimmed = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** The stored entry for {@code url}, from memory or disk, or null. */
+    Entry lookup(String url) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(url);
+        }
+        if (entry == null && DISK) {
+            entry = readDisk(url);
+            if (entry != null) remember(entry);
+        }
+        return entry;
+    }
+
+    /** Body of a fresh entry, counted as a hit; null if the request has to go out. */
+    String fresh(Entry entry) {
+        if (entry == null || !entry.isFresh(System.currentTimeMillis())) return null;
+        hits.increment();
+        return entry.body();
+    }
+
+    /** Adds the validators of a stale {@code entry} so the server can answer 304. */
+    static void addValidators(HttpRequest request, Entry entry) {
+        if (entry == null) return;
+        if (entry.etag() != null) request.setHeader("If-None-Match", entry.etag());
+        if (entry.lastModified() != null) request.setHeader("If-Modified-Since", entry.lastModified());
+    }
+
+    /**
+     * Returns the body for {@code response}: the stored one on 304, else the
+     * downloaded one, which is stored if the response allows it. Always
+     * consumes the entity.
+     */
+    String complete(String url, Entry previous, HttpResponse response) throws IOException {
+        int status = response.getStatusLine().getStatusCode();
+        if (status == HttpStatus.SC_NOT_MODIFIED && previous != null) {
+            EntityUtils.consumeQuietly(response.getEntity());
+            revalidated.increment();
+            Entry refreshed = entry(url, previous.body(), response, previous);
+            if (refreshed != null) store(refreshed);
+            else forget(url);
+            return previous.body();
+        }
+        String body;
+        try {
+            body = response.getEntity() == null ? "" : EntityUtils.toString(response.getEntity());
+        } finally {
+            EntityUtils.consumeQuietly(response.getEntity());
+        }
+        misses.increment();
+        Entry entry = status == HttpStatus.SC_OK ? entry(url, body, response, null) : null;
+        if (entry != null) store(entry);
+        else if (previous != null) forget(url);
+        return body;
+    }
+
+    private void forget(String url) {
+        synchronized (this) {
+            Entry old = entries.remove(url);
+            if (old != null) bytes -= old.size();
+        }
+        if (DISK) TaskExecutor.getInstance().execute(() -> deleteDisk(url));
+    }
+
+    /** Drops {@code url} and any query variants of it, e.g. after a write to that resource. */
+    public void invalidate(String url) {
+        drop(key -> key.equals(url) || key.startsWith(url + "?"));
+        if (DISK) TaskExecutor.getInstance().execute(() -> deleteDisk(url));
+    }
+
+    /** Drops every URL under {@code prefix}, e.g. all listings of a repository after pushing to it. */
+    public void invalidatePrefix(String prefix) {
+        drop(key -> key.startsWith(prefix));
+    }
+
+    private void drop(Predicate<String> matches) {
+        List<String> dropped;
+        synchronized (this) {
+            dropped = entries.keySet().stream().filter(matches).toList();
+            for (String key : dropped) bytes -= entries.remove(key).size();
+        }
+        if (DISK && !dropped.isEmpty()) {
+            TaskExecutor.getInstance().execute(() -> dropped.forEach(HttpCache::deleteDisk));
+        }
+    }
+
+    public void clear() {
+        synchronized (this) {
+            entries.clear();
+            bytes = 0;
+        }
+        if (DISK) {
+            TaskExecutor.getInstance().execute(() -> {
+                try (Stream<Path> files = Files.list(AppData.dir("http-cache"))) {
+                    files.forEach(HttpCache::deleteQuietly);
+                } catch (IOException e) {
+                    System.err.println("Could not clear HTTP cache: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), revalidated.sum(), misses.sum(), stored.sum(), evictions.sum(), entries.size(), bytes);
+    }
+
+    /** Builds the entry to store for a 200 or 304, or null if the response must not be cached. */
+    private static Entry entry(String url, String body, HttpResponse response, Entry previous) {
+        long now = System.currentTimeMillis();
+        long maxAgeMs = -1;
+        boolean noCache = false;
+        for (Header header : response.getHeaders("Cache-Control")) {
+            for (HeaderElement element : header.getElements()) {
+                switch (element.getName().toLowerCase()) {
+                    case "no-store" -> {
+                        return null;
+                    }
+                    case "no-cache" -> noCache = true;
+                    case "max-age" -> maxAgeMs = seconds(element.getValue()) * 1000;
+                    default -> {
+                        // must-revalidate, private, ...: stale entries are always revalidated anyway
+                    }
+                }
+            }
+        }
+        Header vary = response.getFirstHeader("Vary");
+        if (vary != null && vary.getValue().contains("*")) return null;
+
+        if (maxAgeMs < 0) {
+            Date expires = date(response, "Expires");
+            if (expires != null) {
+                Date served = date(response, "Date");
+                maxAgeMs = expires.getTime() - (served != null ? served.getTime() : now);
+            }
+        }
+        Header age = response.getFirstHeader("Age");
+        if (maxAgeMs > 0 && age != null) maxAgeMs -= seconds(age.getValue()) * 1000;
+
+        String etag = value(response, "ETag", previous != null ? previous.etag() : null);
+        String lastModified = value(response, "Last-Modified", previous != null ? previous.lastModified() : null);
+        long freshFor = Math.max(0, maxAgeMs);
+        // Nothing to gain from an entry that is never fresh and cannot be revalidated
+        if (freshFor == 0 && etag == null && lastModified == null) return null;
+        return new Entry(url, body, etag, lastModified, now, freshFor, noCache);
+    }
+
+    private void store(Entry entry) {
+        if (entry.size() > MAX_BYTES / 8) return;
+        remember(entry);
+        stored.increment();
+        if (DISK) TaskExecutor.getInstance().execute(() -> writeDisk(entry));
+    }
+
+    private synchronized void remember(Entry entry) {
+        Entry old = entries.put(entry.url(), entry);
+        if (old != null) bytes -= old.size();
+        bytes += entry.size();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > MAX_BYTES && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            if (evicted == entry) break;
+            eldest.remove();
+            bytes -= evicted.size();
+            evictions.increment();
+        }
+    }
+
+    private static long seconds(String value) {
+        try {
+            return value == null ? 0 : Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static Date date(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header == null ? null : DateUtils.parseDate(header.getValue());
+    }
+
+    private static String value(HttpResponse response, String name, String fallback) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : fallback;
+    }
+
+    // Disk tier: one file per URL, named by the URL's SHA-256
+
+    private static Path diskPath(String url) throws IOException {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return AppData.dir("http-cache").resolve(HexFormat.of().formatHex(hash));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Entry readDisk(String url) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(diskPath(url))))) {
+            if (in.readInt() != DISK_MAGIC || !in.readUTF().equals(url)) return null;
+            String etag = optional(in.readUTF());
+            String lastModified = optional(in.readUTF());
+            long storedAt = in.readLong();
+            long freshFor = in.readLong();
+            boolean noCache = in.readBoolean();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new Entry(url, new String(body, StandardCharsets.UTF_8), etag, lastModified, storedAt, freshFor, noCache);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable HTTP cache entry for " + url + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeDisk(Entry entry) {
+        try {
+            Path target = diskPath(entry.url());
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(DISK_MAGIC);
+                out.writeUTF(entry.url());
+                out.writeUTF(entry.etag() != null ? entry.etag() : "");
+                out.writeUTF(entry.lastModified() != null ? entry.lastModified() : "");
+                out.writeLong(entry.storedAt());
+                out.writeLong(entry.freshForMs());
+                out.writeBoolean(entry.noCache());
+                byte[] body = entry.body().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(body.length);
+                out.write(body);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (diskTrimmed.compareAndSet(false, true)) trimDisk();
+        } catch (IOException e) {
+            System.err.println("Could not write HTTP cache entry: " + e.getMessage());
+        }
+    }
+
+    /** Deletes the least recently written files once the disk tier outgrows its limit; run once per session. */
+    private static void trimDisk() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(AppData.dir("http-cache"))) {
+            files = list.sorted(Comparator.comparingLong(HttpCache::lastModified).reversed()).toList();
+        }
+        long total = 0;
+        for (Path file : files) {
+            total += Files.size(file);
+            if (total > MAX_DISK_BYTES) deleteQuietly(file);
+        }
+    }
+
+    private static void deleteDisk(String url) {
+        try {
+            Files.deleteIfExists(diskPath(url));
+        } catch (IOException e) {
+            System.err.println("Could not delete HTTP cache entry: " + e.getMessage());
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // removed concurrently or not ours to delete
+        }
+    }
+
+    private static String optional(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
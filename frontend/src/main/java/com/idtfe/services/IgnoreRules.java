@@ -0,0 +1,133 @@
+package com.idtfe.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A .gitignore-style matcher for paths relative to a project root. Supports
+ * {@code *}, {@code **}, {@code ?}, character classes, a leading {@code /}
+ * to anchor at the root, a trailing {@code /} for directories only and
+ * {@code !} negation. The last matching rule wins.
+ */
+public class IgnoreRules {
+    // Applied before the project's own .gitignore; override with -Didtfe.explorer.ignore=a/,b/
+    private static final String DEFAULT_PATTERNS = System.getProperty("idtfe.explorer.ignore",
+        ".git/,node_modules/,build/,.gradle/,target/,__pycache__/,.idea/");
+
+    private static final class Rule {
+        final Pattern pattern;
+        final boolean negated;
+        final boolean directoryOnly;
+        final boolean anchored;
+
+        Rule(Pattern pattern, boolean negated, boolean directoryOnly, boolean anchored) {
+            this.pattern = pattern;
+            this.negated = negated;
+            this.directoryOnly = directoryOnly;
+            this.anchored = anchored;
+        }
+    }
+
+    private final List<Rule> rules = new ArrayList<>();
+
+    public IgnoreRules(List<String> patterns) {
+        for (String pattern : patterns) {
+            add(pattern);
+        }
+    }
+
+    /** Default rules, any extra patterns, then the {@code .gitignore} at {@code root} if there is one. */
+    public static IgnoreRules forProject(Path root, String... extraPatterns) {
+        List<String> patterns = new ArrayList<>(List.of(DEFAULT_PATTERNS.split(",")));
+        patterns.addAll(List.of(extraPatterns));
+        Path gitignore = root.resolve(".gitignore");
+        if (Files.isRegularFile(gitignore)) {
+            try {
+                patterns.addAll(Files.readAllLines(gitignore));
+            } catch (IOException e) {
+                // fall back to the defaults
+            }
+        }
+        return new IgnoreRules(patterns);
+    }
+
+    public static IgnoreRules none() {
+        return new IgnoreRules(List.of());
+    }
+
+    private void add(String line) {
+        String p = line.strip();
+        if (p.isEmpty() || p.startsWith("#")) return;
+        boolean negated = p.startsWith("!");
+        if (negated) p = p.substring(1);
+        boolean directoryOnly = p.endsWith("/");
+        if (directoryOnly) p = p.substring(0, p.length() - 1);
+        boolean anchored = p.contains("/");
+        if (p.startsWith("/")) p = p.substring(1);
+        if (p.isEmpty()) return;
+        rules.add(new Rule(Pattern.compile(globToRegex(p)), negated, directoryOnly, anchored));
+    }
+
+    /** {@code relative} uses the platform separator; it is normalised to '/' before matching. */
+    public boolean isIgnored(Path relative, boolean directory) {
+        String path = relative.toString().replace('\\', '/');
+        if (path.isEmpty()) return false;
+        String name = relative.getFileName().toString();
+        boolean ignored = false;
+        for (Rule rule : rules) {
+            if (rule.directoryOnly && !directory) continue;
+            String subject = rule.anchored ? path : name;
+            if (rule.pattern.matcher(subject).matches()) {
+                ignored = !rule.negated;
+            }
+        }
+        return ignored;
+    }
+
+    static String globToRegex(String glob) {
+        StringBuilder re = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        i++;
+                        if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                            i++;
+                            re.append("(?:.*/)?");
+                        } else {
+                            re.append(".*");
+                        }
+                    } else {
+                        re.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    re.append("[^/]");
+                    break;
+                case '[':
+                    int close = glob.indexOf(']', i + 1);
+                    if (close < 0) {
+                        re.append("\\[");
+                    } else {
+                        String cls = glob.substring(i + 1, close).replace("\\", "\\\\");
+                        if (cls.startsWith("!")) cls = "^" + cls.substring(1);
+                        re.append('[').append(cls).append(']');
+                        i = close;
+                    }
+                    break;
+                case '\\':
+                    if (i + 1 < glob.length()) re.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                    break;
+                default:
+                    if (".+()^$|{}".indexOf(c) >= 0) re.append('\\');
+                    re.append(c);
+            }
+        }
+        return re.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.idtfe.services;
+
+import java.util.Arrays;
+
+/**
+ * Pretty-prints JSON in one pass over the characters, without building a
+ * tree: whitespace outside strings is dropped and re-emitted around
+ * brackets, commas and colons. Empty objects and arrays stay on one line.
+ */
+final class JsonFormatter implements CodeFormatter {
+
+    @Override
+    public String format(CharSequence text) {
+        int length = text.length();
+        StringBuilder out = new StringBuilder(length + length / 2);
+        char[] open = new char[64];
+        int depth = 0;
+        int line = 1;
+        boolean pendingBreak = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') line++;
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') continue;
+            if (pendingBreak) {
+                // The bracket before was opened; close it right away if it is empty
+                pendingBreak = false;
+                if (c == '}' || c == ']') {
+                    if (c != (open[depth - 1] == '{' ? '}' : ']')) throw mismatch(c, line);
+                    depth--;
+                    out.append(c);
+                    continue;
+                }
+                newline(out, depth);
+            }
+            switch (c) {
+                case '{', '[' -> {
+                    if (depth == open.length) open = Arrays.copyOf(open, depth * 2);
+                    open[depth++] = c;
+                    out.append(c);
+                    pendingBreak = true;
+                }
+                case '}', ']' -> {
+                    if (depth == 0 || c != (open[depth - 1] == '{' ? '}' : ']')) throw mismatch(c, line);
+                    depth--;
+                    newline(out, depth);
+                    out.append(c);
+                }
+                case ',' -> {
+                    out.append(',');
+                    newline(out, depth);
+                }
+                case ':' -> out.append(": ");
+                case '"' -> {
+                    int end = endOfString(text, i, line);
+                    append(out, text, i, end + 1);
+                    i = end;
+                }
+                default -> out.append(c);
+            }
+        }
+        if (depth > 0) throw new IllegalArgumentException("Line " + line + ": unclosed '" + open[depth - 1] + "'");
+        if (pendingBreak) throw new IllegalArgumentException("Line " + line + ": unexpected end of input");
+        return out.append('\n').toString();
+    }
+
+    private static int endOfString(CharSequence text, int start, int line) {
+        for (int i = start + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\') i++;
+            else if (c == '"') return i;
+            else if (c == '\n') break;
+        }
+        throw new IllegalArgumentException("Line " + line + ": unterminated string");
+    }
+
+    private static void append(StringBuilder out, CharSequence text, int start, int end) {
+        if (text instanceof String s) out.append(s, start, end);
+        else out.append(text, start, end);
+    }
+
+    private static void newline(StringBuilder out, int depth) {
+        out.append('\n');
+        for (int d = 0; d < depth; d++) out.append(INDENT);
+    }
+
+    private static IllegalArgumentException mismatch(char c, int line) {
+        return new IllegalArgumentException("Line " + line + ": unexpected '" + c + "'");
+    }
+}
@@ -0,0 +1,177 @@
+package com.idtfe.services;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reports the first JSON syntax error, with its line and column. Walks the
+ * text once with an explicit stack of open containers, so deeply nested
+ * input cannot overflow the thread stack.
+ */
+final class JsonSyntaxRule implements LintEngine.DocumentRule {
+
+    private enum Expect { VALUE, VALUE_OR_CLOSE, KEY, KEY_OR_CLOSE, COLON, AFTER_VALUE }
+
+    private static final class SyntaxError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int offset;
+
+        SyntaxError(int offset, String message) {
+            super(message, null, false, false);
+            this.offset = offset;
+        }
+    }
+
+    @Override
+    public void check(String text, List<Diagnostic> out) {
+        try {
+            validate(text);
+        } catch (SyntaxError e) {
+            int line = 1;
+            int lineStart = 0;
+            for (int i = 0; i < e.offset && i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    line++;
+                    lineStart = i + 1;
+                }
+            }
+            out.add(new Diagnostic(line, e.offset - lineStart + 1, Diagnostic.Severity.ERROR, "json-syntax",
+                "JSON Error: " + e.getMessage()));
+        }
+    }
+
+    private static void validate(String text) {
+        char[] stack = new char[32];
+        int depth = 0;
+        Expect expect = Expect.VALUE;
+        int i = skipWhitespace(text, 0);
+        while (true) {
+            if (i >= text.length()) {
+                if (expect == Expect.AFTER_VALUE && depth == 0) return;
+                throw new SyntaxError(i, "Unexpected end of input");
+            }
+            char c = text.charAt(i);
+            switch (expect) {
+                case VALUE_OR_CLOSE, KEY_OR_CLOSE -> {
+                    char close = expect == Expect.VALUE_OR_CLOSE ? ']' : '}';
+                    if (c == close) {
+                        depth--;
+                        i++;
+                        expect = Expect.AFTER_VALUE;
+                    } else {
+                        expect = expect == Expect.VALUE_OR_CLOSE ? Expect.VALUE : Expect.KEY;
+                        continue;
+                    }
+                }
+                case VALUE -> {
+                    if (c == '{' || c == '[') {
+                        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+                        stack[depth++] = c;
+                        i++;
+                        expect = c == '{' ? Expect.KEY_OR_CLOSE : Expect.VALUE_OR_CLOSE;
+                    } else {
+                        i = value(text, i);
+                        expect = Expect.AFTER_VALUE;
+                    }
+                }
+                case KEY -> {
+                    if (c != '"') throw new SyntaxError(i, "Expecting property name enclosed in double quotes");
+                    i = string(text, i);
+                    expect = Expect.COLON;
+                }
+                case COLON -> {
+                    if (c != ':') throw new SyntaxError(i, "Expecting ':' delimiter");
+                    i++;
+                    expect = Expect.VALUE;
+                }
+                case AFTER_VALUE -> {
+                    if (depth == 0) throw new SyntaxError(i, "Extra data");
+                    char open = stack[depth - 1];
+                    if (c == ',') {
+                        i++;
+                        expect = open == '{' ? Expect.KEY : Expect.VALUE;
+                    } else if (c == (open == '{' ? '}' : ']')) {
+                        depth--;
+                        i++;
+                    } else {
+                        throw new SyntaxError(i, "Expecting ',' delimiter");
+                    }
+                }
+            }
+            i = skipWhitespace(text, i);
+        }
+    }
+
+    /** Index after a string, number or literal starting at {@code i}. */
+    private static int value(String text, int i) {
+        char c = text.charAt(i);
+        if (c == '"') return string(text, i);
+        if (c == '-' || (c >= '0' && c <= '9')) return number(text, i);
+        for (String literal : new String[] {"true", "false", "null"}) {
+            if (text.startsWith(literal, i)) return i + literal.length();
+        }
+        throw new SyntaxError(i, "Expecting value");
+    }
+
+    private static int string(String text, int start) {
+        for (int i = start + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') return i + 1;
+            if (c == '\\') {
+                if (i + 1 >= text.length()) break;
+                char e = text.charAt(++i);
+                if (e == 'u') {
+                    for (int k = 1; k <= 4; k++) {
+                        if (i + k >= text.length() || Character.digit(text.charAt(i + k), 16) < 0) {
+                            throw new SyntaxError(i - 1, "Invalid \\uXXXX escape");
+                        }
+                    }
+                    i += 4;
+                } else if ("\"\\/bfnrt".indexOf(e) < 0) {
+                    throw new SyntaxError(i - 1, "Invalid \\escape");
+                }
+            } else if (c < 0x20) {
+                throw new SyntaxError(i, "Invalid control character in string");
+            }
+        }
+        throw new SyntaxError(start, "Unterminated string");
+    }
+
+    private static int number(String text, int i) {
+        int start = i;
+        if (text.charAt(i) == '-') i++;
+        if (i < text.length() && text.charAt(i) == '0') {
+            i++;
+        } else if (i < text.length() && isDigit(text.charAt(i))) {
+            while (i < text.length() && isDigit(text.charAt(i))) i++;
+        } else {
+            throw new SyntaxError(start, "Expecting value");
+        }
+        if (i < text.length() && text.charAt(i) == '.') {
+            i++;
+            if (i >= text.length() || !isDigit(text.charAt(i))) throw new SyntaxError(i, "Invalid number");
+            while (i < text.length() && isDigit(text.charAt(i))) i++;
+        }
+        if (i < text.length() && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < text.length() && (text.charAt(i) == '+' || text.charAt(i) == '-')) i++;
+            if (i >= text.length() || !isDigit(text.charAt(i))) throw new SyntaxError(i, "Invalid number");
+            while (i < text.length() && isDigit(text.charAt(i))) i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int skipWhitespace(String text, int i) {
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') break;
+            i++;
+        }
+        return i;
+    }
+}
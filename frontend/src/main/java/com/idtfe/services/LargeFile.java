@@ -0,0 +1,183 @@
+package com.idtfe.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read-only access to a file too large to hold as a String. The file is
+ * memory-mapped in segments of up to 1 GB and a background scan records
+ * where every 64th line starts, so any line is found by stepping over at
+ * most 63 lines from the nearest checkpoint and decoded on demand while the
+ * rest of the file stays on disk. The sparse index keeps memory at a few
+ * bytes per 64 lines even for files with hundreds of millions of lines.
+ * Lines become available as the scan reaches them.
+ */
+public class LargeFile implements AutoCloseable {
+    private static final long SEGMENT_BYTES = 1L << 30;
+    private static final int SCAN_BLOCK = 1 << 16;
+    private static final int LINES_PER_CHECKPOINT = 64;
+    // Longer lines are cut for display
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final MappedByteBuffer[] segments;
+    // checkpoints[k] is the byte offset where line k * LINES_PER_CHECKPOINT begins; guarded by this
+    private long[] checkpoints = new long[1024];
+    private int checkpointCount = 1;
+    // Newlines seen so far, i.e. lines known to be complete; guarded by this
+    private long newlines;
+    private volatile boolean indexed;
+    private final CompletableFuture<Long> indexing;
+
+    LargeFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        int count = (int) ((size + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+        this.segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long offset = i * SEGMENT_BYTES;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(SEGMENT_BYTES, size - offset));
+        }
+        this.indexing = TaskExecutor.getInstance().supplyAsync(this::scanLines);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    /** Completes with the line count once the whole file has been scanned. */
+    public CompletableFuture<Long> whenIndexed() {
+        return indexing;
+    }
+
+    /** Number of lines readable so far; final once {@link #isIndexed()}. */
+    public synchronized long lineCount() {
+        if (!indexed) return newlines; // the last started line may still grow
+        // A trailing newline does not open another line
+        return size > 0 && byteAt(size - 1) == '\n' ? newlines : newlines + 1;
+    }
+
+    public String line(long index) {
+        return lines(index, 1).get(0);
+    }
+
+    /** Up to {@code count} lines starting at {@code first}. */
+    public List<String> lines(long first, int count) {
+        long available;
+        long offset;
+        synchronized (this) {
+            available = lineCount();
+            if (first < 0 || first >= available) {
+                throw new IndexOutOfBoundsException("Line " + first + " of " + available);
+            }
+            offset = checkpoints[(int) (first / LINES_PER_CHECKPOINT)];
+        }
+        for (long skip = first % LINES_PER_CHECKPOINT; skip > 0; skip--) {
+            offset = endOfLine(offset) + 1;
+        }
+        long last = Math.min(available, first + count);
+        List<String> result = new ArrayList<>((int) (last - first));
+        for (long i = first; i < last; i++) {
+            long end = endOfLine(offset);
+            result.add(decode(offset, end));
+            offset = end + 1;
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        indexing.cancel(true);
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // mappings are released when collected
+        }
+    }
+
+    private byte byteAt(long offset) {
+        return segments[(int) (offset / SEGMENT_BYTES)].get((int) (offset % SEGMENT_BYTES));
+    }
+
+    /** Offset of the newline ending the line that starts at {@code start}, or the file size. */
+    private long endOfLine(long start) {
+        long at = start;
+        while (at < size && byteAt(at) != '\n') at++;
+        return at;
+    }
+
+    private String decode(long start, long end) {
+        boolean cut = end - start > MAX_LINE_BYTES;
+        if (cut) end = start + MAX_LINE_BYTES;
+        else if (end > start && byteAt(end - 1) == '\r') end--;
+        byte[] bytes = new byte[(int) (end - start)];
+        int copied = 0;
+        while (copied < bytes.length) {
+            long at = start + copied;
+            ByteBuffer segment = segments[(int) (at / SEGMENT_BYTES)].duplicate();
+            int pos = (int) (at % SEGMENT_BYTES);
+            int n = Math.min(bytes.length - copied, segment.limit() - pos);
+            segment.position(pos);
+            segment.get(bytes, copied, n);
+            copied += n;
+        }
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        return cut ? text + " …" : text;
+    }
+
+    private long scanLines() {
+        byte[] block = new byte[SCAN_BLOCK];
+        long[] found = new long[SCAN_BLOCK / LINES_PER_CHECKPOINT + 1];
+        long seen = 0;
+        for (int s = 0; s < segments.length; s++) {
+            ByteBuffer segment = segments[s].duplicate();
+            long base = s * SEGMENT_BYTES;
+            while (segment.hasRemaining()) {
+                if (Thread.currentThread().isInterrupted()) return -1;
+                int pos = segment.position();
+                int n = Math.min(block.length, segment.remaining());
+                segment.get(block, 0, n);
+                int marks = 0;
+                for (int i = 0; i < n; i++) {
+                    if (block[i] != '\n') continue;
+                    seen++;
+                    if (seen % LINES_PER_CHECKPOINT == 0) found[marks++] = base + pos + i + 1;
+                }
+                publish(found, marks, seen);
+            }
+        }
+        synchronized (this) {
+            indexed = true;
+            return lineCount();
+        }
+    }
+
+    private synchronized void publish(long[] found, int count, long seen) {
+        if (checkpointCount + count > checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, Math.max(checkpoints.length * 2, checkpointCount + count));
+        }
+        System.arraycopy(found, 0, checkpoints, checkpointCount, count);
+        checkpointCount += count;
+        newlines = seen;
+    }
+}
@@ -0,0 +1,173 @@
+package com.idtfe.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Append-only store for terminal output. Text is kept as UTF-8 in fixed
+ * 1 MB byte chunks with one start offset per line, so memory tracks the
+ * stored bytes instead of per-line String objects. Lines are decoded only
+ * when asked for. Once the store exceeds its byte budget, whole chunks are
+ * dropped from the head. Line numbers stay stable and dropped lines simply
+ * fall below {@link #firstLine()}.
+ */
+public class LineStore {
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final long maxBytes;
+    private final List<byte[]> chunks = new ArrayList<>();
+    // Absolute byte offset of chunks.get(0)
+    private long baseOffset;
+    private long writeOffset;
+    // starts[i - startsBase] is the absolute byte offset where line i begins
+    private long[] starts = new long[1024];
+    private long startsBase;
+    private long lineCount = 1; // the open (possibly empty) last line always exists
+    private long firstLine;
+
+    public LineStore(long maxBytes) {
+        this.maxBytes = Math.max(CHUNK_SIZE * 2L, maxBytes);
+        starts[0] = 0;
+    }
+
+    /** Appends text; returns the number of lines that were completed. */
+    public synchronized int append(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int completed = 0;
+        int pos = 0;
+        while (pos < bytes.length) {
+            int chunkIndex = (int) ((writeOffset - baseOffset) >>> CHUNK_BITS);
+            if (chunkIndex == chunks.size()) chunks.add(new byte[CHUNK_SIZE]);
+            byte[] chunk = chunks.get(chunkIndex);
+            int at = (int) (writeOffset & CHUNK_MASK);
+            int n = Math.min(bytes.length - pos, CHUNK_SIZE - at);
+            for (int i = 0; i < n; i++) {
+                byte b = bytes[pos + i];
+                chunk[at + i] = b;
+                if (b == '\n') {
+                    addLineStart(writeOffset + i + 1);
+                    completed++;
+                }
+            }
+            pos += n;
+            writeOffset += n;
+        }
+        trimToBudget();
+        return completed;
+    }
+
+    public synchronized void clear() {
+        chunks.clear();
+        baseOffset = writeOffset = 0;
+        starts = new long[1024];
+        startsBase = 0;
+        lineCount = 1;
+        firstLine = 0;
+    }
+
+    /** Index of the oldest line still stored. */
+    public synchronized long firstLine() {
+        return firstLine;
+    }
+
+    /** One past the index of the last line, including the open last line. */
+    public synchronized long endLine() {
+        return lineCount;
+    }
+
+    public synchronized long byteSize() {
+        return writeOffset - baseOffset;
+    }
+
+    public synchronized String line(long index) {
+        if (index < firstLine || index >= lineCount) {
+            throw new IndexOutOfBoundsException("Line " + index + " not in [" + firstLine + ", " + lineCount + ")");
+        }
+        long start = starts[(int) (index - startsBase)];
+        long end = index + 1 < lineCount ? starts[(int) (index + 1 - startsBase)] - 1 : writeOffset;
+        if (end > start && byteAt(end - 1) == '\r') end--;
+        byte[] out = new byte[(int) (end - start)];
+        long offset = start;
+        int copied = 0;
+        while (copied < out.length) {
+            byte[] chunk = chunks.get((int) ((offset - baseOffset) >>> CHUNK_BITS));
+            int at = (int) (offset & CHUNK_MASK);
+            int n = Math.min(out.length - copied, CHUNK_SIZE - at);
+            System.arraycopy(chunk, at, out, copied, n);
+            copied += n;
+            offset += n;
+        }
+        return new String(out, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds the first line at or after {@code from} (wrapping around) that
+     * matches. Lines are read one at a time, so appends are not blocked
+     * for the length of the scan. Returns -1 when nothing matches.
+     */
+    public long find(Predicate<String> matcher, long from, boolean forward) {
+        long first;
+        long end;
+        synchronized (this) {
+            first = firstLine;
+            end = lineCount;
+        }
+        long total = end - first;
+        if (total <= 0) return -1;
+        long start = Math.min(Math.max(from, first), end - 1);
+        for (long step = 0; step < total; step++) {
+            long index = forward
+                ? first + Math.floorMod(start - first + step, total)
+                : first + Math.floorMod(start - first - step, total);
+            String text;
+            try {
+                text = line(index);
+            } catch (IndexOutOfBoundsException e) {
+                continue; // trimmed while scanning
+            }
+            if (matcher.test(text)) return index;
+        }
+        return -1;
+    }
+
+    private byte byteAt(long offset) {
+        return chunks.get((int) ((offset - baseOffset) >>> CHUNK_BITS))[(int) (offset & CHUNK_MASK)];
+    }
+
+    private void addLineStart(long offset) {
+        int slot = (int) (lineCount - startsBase);
+        if (slot == starts.length) {
+            // Reclaim the slots of dropped lines before growing
+            int dropped = (int) (firstLine - startsBase);
+            if (dropped > starts.length / 2) {
+                System.arraycopy(starts, dropped, starts, 0, slot - dropped);
+                startsBase += dropped;
+                slot -= dropped;
+            } else {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+        }
+        starts[slot] = offset;
+        lineCount++;
+    }
+
+    private void trimToBudget() {
+        while (writeOffset - baseOffset > maxBytes && chunks.size() > 1) {
+            chunks.remove(0);
+            baseOffset += CHUNK_SIZE;
+            // Drop every line that started in the released chunk
+            while (firstLine < lineCount - 1 && starts[(int) (firstLine - startsBase)] < baseOffset) {
+                firstLine++;
+            }
+            if (starts[(int) (firstLine - startsBase)] < baseOffset) {
+                // The open line itself began in the dropped chunk; restart it at the new base
+                starts[(int) (firstLine - startsBase)] = baseOffset;
+            }
+        }
+    }
+}
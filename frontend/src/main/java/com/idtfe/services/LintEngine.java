@@ -0,0 +1,148 @@
+package com.idtfe.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Lints one document in the background. Most rules look at one line at a
+ * time, so their results are cached by line text: after an edit only lines
+ * that are new or changed are checked again and everything else is reused,
+ * wherever it has moved. Rules that need the whole text run on every pass.
+ * Starting a pass cancels the one still running, so only the latest text
+ * is ever linted to the end.
+ *
+ * <p>The initial rules mirror the backend's lint action: unclosed
+ * {@code <script>}/{@code <style>} in HTML, missing semicolons in CSS,
+ * JSON syntax, and empty files of other types.
+ */
+public class LintEngine {
+    private static final int CACHED_LINES = Integer.getInteger("idtfe.lint.cacheLines", 50_000);
+    private static final int CHECK_INTERRUPT_LINES = 256;
+
+    /** Checks a single line; report diagnostics at line 0 and the engine fills in the line number. */
+    @FunctionalInterface
+    public interface LineRule {
+        void check(String line, List<Diagnostic> out);
+    }
+
+    /** Checks the whole text, for rules that need more than one line of context. */
+    @FunctionalInterface
+    public interface DocumentRule {
+        void check(String text, List<Diagnostic> out);
+    }
+
+    /** Diagnostics of one pass, plus how much of the text had to be checked. */
+    public record Report(List<Diagnostic> diagnostics, int lines, int linesChecked, long elapsedMs) {
+    }
+
+    private static final Map<String, List<LineRule>> LINE_RULES = new ConcurrentHashMap<>();
+    private static final Map<String, List<DocumentRule>> DOCUMENT_RULES = new ConcurrentHashMap<>();
+
+    static {
+        addLineRule("html", (line, out) -> unclosed(line, "script", out));
+        addLineRule("html", (line, out) -> unclosed(line, "style", out));
+        addLineRule("css", LintEngine::missingSemicolon);
+        addDocumentRule("json", new JsonSyntaxRule());
+        for (String type : List.of("javascript", "markdown", "xml", "text")) {
+            addDocumentRule(type, (text, out) -> {
+                if (text.isBlank()) out.add(new Diagnostic(1, 1, Diagnostic.Severity.INFO, "empty-file", "File is empty"));
+            });
+        }
+    }
+
+    // Line text -> its diagnostics at line 0; guarded by this
+    private final Map<String, List<Diagnostic>> cache = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<Diagnostic>> eldest) {
+            return size() > CACHED_LINES;
+        }
+    };
+    private String cachedType;
+    private CompletableFuture<Report> running;
+
+    public static void addLineRule(String type, LineRule rule) {
+        LINE_RULES.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(rule);
+    }
+
+    public static void addDocumentRule(String type, DocumentRule rule) {
+        DOCUMENT_RULES.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(rule);
+    }
+
+    /**
+     * Lints a snapshot of {@code type} text on a worker thread, cancelling
+     * the previous pass. Call from one thread (the FX thread).
+     */
+    public CompletableFuture<Report> lint(String type, PieceTable text) {
+        if (running != null) running.cancel(true);
+        running = TaskExecutor.getInstance().supplyAsync(() -> run(type, text.toString()));
+        return running;
+    }
+
+    public void cancel() {
+        if (running != null) running.cancel(true);
+        running = null;
+    }
+
+    private synchronized Report run(String type, String text) {
+        long started = System.nanoTime();
+        if (!type.equals(cachedType)) {
+            cache.clear();
+            cachedType = type;
+        }
+        List<LineRule> lineRules = LINE_RULES.getOrDefault(type, List.of());
+        List<Diagnostic> found = new ArrayList<>();
+        int lines = 0;
+        int checked = 0;
+        if (!lineRules.isEmpty()) {
+            int start = 0;
+            while (start <= text.length()) {
+                int end = text.indexOf('\n', start);
+                if (end < 0) end = text.length();
+                String line = text.substring(start, end);
+                start = end + 1;
+                lines++;
+                if (lines % CHECK_INTERRUPT_LINES == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException();
+                }
+                List<Diagnostic> result = cache.get(line);
+                if (result == null) {
+                    result = new ArrayList<>(0);
+                    for (LineRule rule : lineRules) rule.check(line, result);
+                    cache.put(line, result.isEmpty() ? List.of() : List.copyOf(result));
+                    checked++;
+                }
+                for (Diagnostic d : result) found.add(d.atLine(lines));
+            }
+        }
+        for (DocumentRule rule : DOCUMENT_RULES.getOrDefault(type, List.of())) {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+            rule.check(text, found);
+        }
+        found.sort(Comparator.comparingInt(Diagnostic::line).thenComparingInt(Diagnostic::column));
+        return new Report(found, lines, checked, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static void unclosed(String line, String tag, List<Diagnostic> out) {
+        String lower = line.toLowerCase();
+        int open = lower.indexOf("<" + tag + ">");
+        if (open >= 0 && !lower.contains("</" + tag + ">")) {
+            out.add(new Diagnostic(0, open + 1, Diagnostic.Severity.WARNING, "unclosed-" + tag, "Unclosed " + tag + " tag"));
+        }
+    }
+
+    private static void missingSemicolon(String line, List<Diagnostic> out) {
+        String stripped = line.strip();
+        if (stripped.isEmpty() || stripped.endsWith(";") || stripped.endsWith("{") || stripped.endsWith("}")) return;
+        if (stripped.contains(":") && !stripped.startsWith("/*")) {
+            out.add(new Diagnostic(0, line.stripTrailing().length() + 1, Diagnostic.Severity.WARNING,
+                "missing-semicolon", "Missing semicolon"));
+        }
+    }
+}
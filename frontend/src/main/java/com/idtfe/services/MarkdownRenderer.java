@@ -0,0 +1,426 @@
+package com.idtfe.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process Markdown to HTML renderer covering the GitHub-flavoured subset
+ * used in READMEs. The source is split into top-level blocks in a single
+ * pass and each block's HTML is cached by its source text, so re-rendering
+ * after an edit only converts the blocks that actually changed.
+ */
+public class MarkdownRenderer {
+    private static final int MAX_CACHED_BLOCKS = 4096;
+
+    private static final Pattern FENCE = Pattern.compile("^ {0,3}(`{3,}|~{3,})\\s*([\\w+#.-]*).*$");
+    private static final Pattern HEADING = Pattern.compile("^ {0,3}(#{1,6})(?:\\s+(.*?))?\\s*#*\\s*$");
+    private static final Pattern HR = Pattern.compile("^ {0,3}([-*_])(\\s*\\1){2,}\\s*$");
+    private static final Pattern SETEXT = Pattern.compile("^ {0,3}(=+|-+)\\s*$");
+    private static final Pattern LIST_ITEM = Pattern.compile("^( {0,3})([-*+]|\\d{1,9}[.)])(\\s+|$)(.*)$");
+    private static final Pattern TASK = Pattern.compile("^\\[([ xX])\\]\\s+(.*)$", Pattern.DOTALL);
+    private static final Pattern TABLE_DELIMITER = Pattern.compile("^\\s*\\|?\\s*:?-+:?\\s*(\\|\\s*:?-+:?\\s*)*\\|?\\s*$");
+    private static final Pattern HTML_BLOCK = Pattern.compile("^ {0,3}<(?:/?[a-zA-Z][a-zA-Z0-9-]*(?:\\s|/?>|$)|!--)");
+    // HTML blocks that run to their end tag rather than to a blank line
+    private static final Pattern RAW_HTML_BLOCK = Pattern.compile("^ {0,3}<(pre|script|style|textarea)(?:\\s|>|$)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern IMAGE = Pattern.compile("!\\[([^\\]]*)\\]\\(([^)\\s]+)(?:\\s+&quot;(.*?)&quot;)?\\)");
+    private static final Pattern LINK = Pattern.compile("\\[([^\\]]+)\\]\\(([^)\\s]+)(?:\\s+&quot;(.*?)&quot;)?\\)");
+    private static final Pattern AUTOLINK = Pattern.compile("&lt;(https?://[^\\s&]+)&gt;");
+    private static final Pattern BOLD = Pattern.compile("(\\*\\*|__)(?=\\S)(.+?)(?<=\\S)\\1");
+    private static final Pattern ITALIC = Pattern.compile("(?<![\\w*])([*_])(?=\\S)(.+?)(?<=\\S)\\1(?![\\w*])");
+    private static final Pattern STRIKE = Pattern.compile("~~(?=\\S)(.+?)(?<=\\S)~~");
+    private static final Pattern CODE_SPAN = Pattern.compile("(`+)(.+?)\\1", Pattern.DOTALL);
+
+    /** A top-level block with its source and rendered HTML. */
+    public record Block(String source, String html) {}
+
+    // Access-ordered so the least recently used fragments are dropped first
+    private final Map<String, String> blockCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHED_BLOCKS;
+        }
+    };
+    private int lastBlockCount;
+    private int lastReusedCount;
+
+    public synchronized String render(String markdown) {
+        StringBuilder html = new StringBuilder(markdown.length() + markdown.length() / 4);
+        for (Block block : renderBlocks(markdown)) {
+            html.append(block.html()).append('\n');
+        }
+        return html.toString();
+    }
+
+    public synchronized List<Block> renderBlocks(String markdown) {
+        List<String> sources = splitBlocks(markdown);
+        List<Block> blocks = new ArrayList<>(sources.size());
+        int reused = 0;
+        for (String source : sources) {
+            String html = blockCache.get(source);
+            if (html == null) {
+                html = renderBlock(source);
+                blockCache.put(source, html);
+            } else {
+                reused++;
+            }
+            blocks.add(new Block(source, html));
+        }
+        lastBlockCount = blocks.size();
+        lastReusedCount = reused;
+        return blocks;
+    }
+
+    public synchronized int getLastBlockCount() {
+        return lastBlockCount;
+    }
+
+    /** Number of blocks served from the fragment cache by the last render. */
+    public synchronized int getLastReusedCount() {
+        return lastReusedCount;
+    }
+
+    public synchronized void clearCache() {
+        blockCache.clear();
+    }
+
+    /**
+     * Splits the document into top-level blocks line by line. Fenced code is
+     * kept whole, lists and quotes absorb their indented continuations, and
+     * HTML blocks run to a blank line as in CommonMark (comments and
+     * {@code <pre>}, {@code <script>}, {@code <style>}, {@code <textarea>}
+     * to their end marker), so {@code <p align="center">} and its text stay
+     * one block.
+     */
+    static List<String> splitBlocks(String markdown) {
+        String[] lines = markdown.replace("\r\n", "\n").replace('\r', '\n').split("\n", -1);
+        List<String> blocks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        String currentKind = null;
+        String htmlEnd = null; // end marker of the open HTML block, or null if a blank line ends it
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            if ("html".equals(currentKind) && (htmlEnd != null || !line.isBlank())) {
+                current.append('\n').append(line);
+                if (htmlEnd != null && line.toLowerCase(Locale.ROOT).contains(htmlEnd)) {
+                    flush(blocks, current);
+                    currentKind = null;
+                }
+                continue;
+            }
+            Matcher fence = FENCE.matcher(line);
+            if (fence.matches()) {
+                flush(blocks, current);
+                String marker = fence.group(1);
+                current.append(line);
+                while (++i < lines.length) {
+                    current.append('\n').append(lines[i]);
+                    String trimmed = lines[i].trim();
+                    if (trimmed.startsWith(marker) && trimmed.replace(String.valueOf(marker.charAt(0)), "").isEmpty()) break;
+                }
+                flush(blocks, current);
+                currentKind = null;
+                continue;
+            }
+            if (line.isBlank()) {
+                // Lists may contain blank lines between items or before indented content
+                if ("list".equals(currentKind) && i + 1 < lines.length && continuesList(current, lines[i + 1])) {
+                    current.append('\n');
+                    continue;
+                }
+                flush(blocks, current);
+                currentKind = null;
+                continue;
+            }
+            if ("paragraph".equals(currentKind) && SETEXT.matcher(line).matches()) {
+                current.append('\n').append(line);
+                flush(blocks, current);
+                currentKind = null;
+                continue;
+            }
+            if (HEADING.matcher(line).matches() || HR.matcher(line).matches()) {
+                flush(blocks, current);
+                blocks.add(line);
+                currentKind = null;
+                continue;
+            }
+
+            String kind = kindOf(line);
+            boolean continuation = currentKind != null
+                && (kind.equals(currentKind)
+                    || ("list".equals(currentKind) && (line.startsWith(" ") || line.startsWith("\t") || "paragraph".equals(kind)))
+                    || ("quote".equals(currentKind) && "paragraph".equals(kind))
+                    || ("paragraph".equals(currentKind) && "indented".equals(kind))
+                    || ("table".equals(currentKind) && line.contains("|")));
+            if (!continuation) {
+                flush(blocks, current);
+                currentKind = kind;
+            } else if (current.length() > 0) {
+                current.append('\n');
+            }
+            current.append(line);
+            if ("html".equals(kind) && !continuation) {
+                htmlEnd = htmlEnd(line);
+                if (htmlEnd != null && line.toLowerCase(Locale.ROOT).indexOf(htmlEnd, line.indexOf('<') + 4) >= 0) {
+                    flush(blocks, current); // opened and closed on one line
+                    currentKind = null;
+                }
+            }
+        }
+        flush(blocks, current);
+        return blocks;
+    }
+
+    private static boolean continuesList(CharSequence list, String next) {
+        if (next.startsWith("  ") || next.startsWith("\t")) return true;
+        Matcher item = LIST_ITEM.matcher(next);
+        if (!item.matches()) return false;
+        // A blank line followed by a different kind of list starts a new list
+        Matcher first = LIST_ITEM.matcher(list.toString().split("\n", 2)[0]);
+        return first.matches() && Character.isDigit(first.group(2).charAt(0)) == Character.isDigit(item.group(2).charAt(0));
+    }
+
+    private static String kindOf(String line) {
+        if (LIST_ITEM.matcher(line).matches()) return "list";
+        if (line.stripLeading().startsWith(">")) return "quote";
+        if (line.startsWith("    ") || line.startsWith("\t")) return "indented";
+        if (HTML_BLOCK.matcher(line).find()) return "html";
+        if (line.trim().startsWith("|")) return "table";
+        return "paragraph";
+    }
+
+    /** The end marker of an HTML block that is not ended by a blank line, or null. */
+    private static String htmlEnd(String line) {
+        if (line.stripLeading().startsWith("<!--")) return "-->";
+        Matcher raw = RAW_HTML_BLOCK.matcher(line);
+        return raw.find() ? "</" + raw.group(1).toLowerCase(Locale.ROOT) + ">" : null;
+    }
+
+    private static void flush(List<String> blocks, StringBuilder current) {
+        if (current.length() > 0) {
+            blocks.add(current.toString());
+            current.setLength(0);
+        }
+    }
+
+    String renderBlock(String block) {
+        String[] lines = block.split("\n", -1);
+        String first = lines[0];
+
+        Matcher fence = FENCE.matcher(first);
+        if (fence.matches()) {
+            int end = lines.length > 1 && lines[lines.length - 1].trim().startsWith(fence.group(1)) ? lines.length - 1 : lines.length;
+            String lang = fence.group(2);
+            StringBuilder code = new StringBuilder();
+            for (int i = 1; i < end; i++) code.append(lines[i]).append('\n');
+            String cls = lang.isEmpty() ? "" : " class=\"language-" + escape(lang) + "\"";
+            return "<pre><code" + cls + ">" + escape(code.toString()) + "</code></pre>";
+        }
+        Matcher heading = HEADING.matcher(first);
+        if (lines.length == 1 && heading.matches()) {
+            int level = heading.group(1).length();
+            String text = heading.group(2) == null ? "" : heading.group(2);
+            return "<h" + level + ">" + inline(text) + "</h" + level + ">";
+        }
+        if (lines.length == 1 && HR.matcher(first).matches()) {
+            return "<hr />";
+        }
+        if (lines.length > 1 && SETEXT.matcher(lines[lines.length - 1]).matches() && "paragraph".equals(kindOf(first))) {
+            int level = lines[lines.length - 1].trim().startsWith("=") ? 1 : 2;
+            return "<h" + level + ">" + inline(join(lines, 0, lines.length - 1)) + "</h" + level + ">";
+        }
+
+        switch (kindOf(first)) {
+            case "list":
+                return renderList(lines);
+            case "quote":
+                StringBuilder inner = new StringBuilder();
+                for (String line : lines) {
+                    String stripped = line.stripLeading();
+                    if (stripped.startsWith(">")) stripped = stripped.substring(1);
+                    if (stripped.startsWith(" ")) stripped = stripped.substring(1);
+                    inner.append(stripped).append('\n');
+                }
+                return "<blockquote>\n" + renderNested(inner.toString()) + "</blockquote>";
+            case "indented":
+                StringBuilder code = new StringBuilder();
+                for (String line : lines) code.append(line.startsWith("\t") ? line.substring(1) : line.substring(Math.min(4, line.length()))).append('\n');
+                return "<pre><code>" + escape(code.toString()) + "</code></pre>";
+            case "html":
+                return block;
+            default:
+                if (lines.length >= 2 && lines[0].contains("|") && TABLE_DELIMITER.matcher(lines[1]).matches()) {
+                    return renderTable(lines);
+                }
+                return "<p>" + inline(join(lines, 0, lines.length)) + "</p>";
+        }
+    }
+
+    private String renderNested(String markdown) {
+        StringBuilder html = new StringBuilder();
+        for (String block : splitBlocks(markdown)) {
+            html.append(renderBlock(block)).append('\n');
+        }
+        return html.toString();
+    }
+
+    private String renderList(String[] lines) {
+        Matcher firstItem = LIST_ITEM.matcher(lines[0]);
+        firstItem.matches();
+        boolean ordered = Character.isDigit(firstItem.group(2).charAt(0));
+        int baseIndent = firstItem.group(1).length();
+
+        List<StringBuilder> items = new ArrayList<>();
+        boolean loose = false;
+        int contentIndent = 0;
+        for (String line : lines) {
+            Matcher item = LIST_ITEM.matcher(line);
+            if (item.matches() && item.group(1).length() <= baseIndent + 1) {
+                items.add(new StringBuilder(item.group(4)));
+                contentIndent = item.group(1).length() + item.group(2).length() + Math.max(1, item.group(3).length());
+            } else if (!items.isEmpty()) {
+                StringBuilder current = items.get(items.size() - 1);
+                if (line.isBlank()) loose = true;
+                current.append('\n').append(dedent(line, contentIndent));
+            }
+        }
+
+        StringBuilder html = new StringBuilder();
+        String tag = ordered ? "ol" : "ul";
+        String start = "";
+        if (ordered) {
+            int number = Integer.parseInt(firstItem.group(2).substring(0, firstItem.group(2).length() - 1));
+            if (number != 1) start = " start=\"" + number + "\"";
+        }
+        html.append('<').append(tag).append(start).append(">\n");
+        for (StringBuilder item : items) {
+            String content = item.toString();
+            String checkbox = "";
+            Matcher task = TASK.matcher(content);
+            if (!ordered && task.matches()) {
+                checkbox = "x".equalsIgnoreCase(task.group(1))
+                    ? "<input type=\"checkbox\" checked disabled /> "
+                    : "<input type=\"checkbox\" disabled /> ";
+                content = task.group(2);
+            }
+            String body = renderNested(content).trim();
+            // Tight lists render their single paragraph inline
+            if (!loose && body.startsWith("<p>")) {
+                body = body.replaceFirst("(?s)^<p>(.*?)</p>", "$1");
+            }
+            html.append("<li>").append(checkbox).append(body).append("</li>\n");
+        }
+        html.append("</").append(tag).append('>');
+        return html.toString();
+    }
+
+    private String renderTable(String[] lines) {
+        List<String> header = cells(lines[0]);
+        List<String> aligns = new ArrayList<>();
+        for (String spec : cells(lines[1])) {
+            boolean left = spec.startsWith(":");
+            boolean right = spec.endsWith(":");
+            aligns.add(left && right ? "center" : right ? "right" : left ? "left" : null);
+        }
+        StringBuilder html = new StringBuilder("<table>\n<thead>\n<tr>");
+        for (int c = 0; c < header.size(); c++) {
+            html.append(cell("th", header.get(c), c < aligns.size() ? aligns.get(c) : null));
+        }
+        html.append("</tr>\n</thead>\n<tbody>\n");
+        for (int r = 2; r < lines.length; r++) {
+            List<String> row = cells(lines[r]);
+            html.append("<tr>");
+            for (int c = 0; c < header.size(); c++) {
+                html.append(cell("td", c < row.size() ? row.get(c) : "", c < aligns.size() ? aligns.get(c) : null));
+            }
+            html.append("</tr>\n");
+        }
+        html.append("</tbody>\n</table>");
+        return html.toString();
+    }
+
+    private String cell(String tag, String text, String align) {
+        String style = align == null ? "" : " style=\"text-align: " + align + "\"";
+        return "<" + tag + style + ">" + inline(text) + "</" + tag + ">";
+    }
+
+    private static List<String> cells(String row) {
+        String trimmed = row.trim();
+        if (trimmed.startsWith("|")) trimmed = trimmed.substring(1);
+        if (trimmed.endsWith("|") && !trimmed.endsWith("\\|")) trimmed = trimmed.substring(0, trimmed.length() - 1);
+        List<String> cells = new ArrayList<>();
+        for (String cell : trimmed.split("(?<!\\\\)\\|", -1)) {
+            cells.add(cell.trim().replace("\\|", "|"));
+        }
+        return cells;
+    }
+
+    /** Converts span-level markup: code, images, links, emphasis and hard breaks. */
+    String inline(String text) {
+        List<String> codeSpans = new ArrayList<>();
+        Matcher code = CODE_SPAN.matcher(text);
+        StringBuilder withPlaceholders = new StringBuilder();
+        while (code.find()) {
+            codeSpans.add("<code>" + escape(code.group(2).strip()) + "</code>");
+            code.appendReplacement(withPlaceholders, "\u0000" + (codeSpans.size() - 1) + "\u0000");
+        }
+        code.appendTail(withPlaceholders);
+
+        String html = escape(withPlaceholders.toString());
+        html = html.replaceAll(" {2,}\n", "<br />\n").replaceAll("\\\\\n", "<br />\n");
+        html = IMAGE.matcher(html).replaceAll(m -> Matcher.quoteReplacement(
+            "<img src=\"" + m.group(2) + "\" alt=\"" + m.group(1) + "\"" + title(m.group(3)) + " />"));
+        html = LINK.matcher(html).replaceAll(m -> Matcher.quoteReplacement(
+            "<a href=\"" + m.group(2) + "\"" + title(m.group(3)) + ">" + m.group(1) + "</a>"));
+        html = AUTOLINK.matcher(html).replaceAll("<a href=\"$1\">$1</a>");
+        html = BOLD.matcher(html).replaceAll("<strong>$2</strong>");
+        html = ITALIC.matcher(html).replaceAll("<em>$2</em>");
+        html = STRIKE.matcher(html).replaceAll("<del>$1</del>");
+
+        for (int i = 0; i < codeSpans.size(); i++) {
+            html = html.replace("\u0000" + i + "\u0000", codeSpans.get(i));
+        }
+        return html;
+    }
+
+    private static String title(String title) {
+        return title == null ? "" : " title=\"" + title + "\"";
+    }
+
+    private static String dedent(String line, int indent) {
+        int i = 0;
+        while (i < line.length() && i < indent && line.charAt(i) == ' ') i++;
+        if (i == 0 && line.startsWith("\t")) return line.substring(1);
+        return line.substring(i);
+    }
+
+    private static String join(String[] lines, int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (i > from) sb.append('\n');
+            sb.append(lines[i].stripLeading());
+        }
+        return sb.toString();
+    }
+
+    static String escape(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&': sb.append("&amp;"); break;
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '"': sb.append("&quot;"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
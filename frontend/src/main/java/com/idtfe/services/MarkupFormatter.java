@@ -0,0 +1,225 @@
+package com.idtfe.services;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Re-indents HTML or XML by element depth, keeping each line's content as
+ * it is so inline text and whitespace-sensitive markup are not reflowed.
+ * Void elements ({@code <br>}, {@code <img>}, ...) and self-closing tags do
+ * not open a level. In HTML, the bodies of {@code <script>} and
+ * {@code <style>} go through the JavaScript and CSS formatters, and
+ * {@code <pre>} and {@code <textarea>} bodies, comments and CDATA
+ * sections are copied unchanged.
+ */
+final class MarkupFormatter implements CodeFormatter {
+    private static final Set<String> VOID_ELEMENTS = Set.of(
+        "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track", "wbr");
+    private static final Set<String> VERBATIM_ELEMENTS = Set.of("pre", "textarea");
+
+    private final boolean html;
+
+    MarkupFormatter(boolean html) {
+        this.html = html;
+    }
+
+    @Override
+    public String format(CharSequence text) {
+        return new Run(text.toString()).format();
+    }
+
+    /** State of one formatting pass. */
+    private final class Run {
+        private final String source;
+        private final StringBuilder out;
+        private int depth;
+        // Set while inside a construct that spans lines
+        private String verbatimEnd;   // "-->", "]]>" or "</pre" etc.: copy lines until it appears
+        private String embeddedEnd;   // "</script" or "</style": collect lines for another formatter
+        private CodeFormatter embedded;
+        private final StringBuilder block = new StringBuilder();
+        private boolean inTag;        // a start tag whose attributes continue on the next line
+        private String tagName;
+        private char quote;
+
+        Run(String source) {
+            this.source = source;
+            this.out = new StringBuilder(source.length() + source.length() / 4);
+        }
+
+        String format() {
+            boolean blank = false;
+            int start = 0;
+            while (start <= source.length()) {
+                int end = source.indexOf('\n', start);
+                if (end < 0) end = source.length();
+                String line = source.substring(start, end);
+                if (line.endsWith("\r")) line = line.substring(0, line.length() - 1);
+                start = end + 1;
+                if (verbatimEnd != null) {
+                    out.append(line).append('\n');
+                    int close = indexOf(line, verbatimEnd, 0);
+                    if (close >= 0) {
+                        verbatimEnd = null;
+                        scan(line, close);
+                    }
+                    continue;
+                }
+                if (embeddedEnd != null) {
+                    int close = indexOf(line, embeddedEnd, 0);
+                    if (close < 0) {
+                        block.append(line).append('\n');
+                        continue;
+                    }
+                    block.append(line, 0, close);
+                    flushEmbedded();
+                    line = line.substring(close);
+                }
+                String stripped = line.strip();
+                if (stripped.isEmpty()) {
+                    if (!blank && out.length() > 0) out.append('\n');
+                    blank = true;
+                    continue;
+                }
+                blank = false;
+                int lineDepth = depth;
+                if (inTag) lineDepth++;
+                else if (stripped.startsWith("</")) lineDepth--;
+                indent(Math.max(0, lineDepth));
+                out.append(stripped).append('\n');
+                scan(stripped, 0);
+            }
+            if (embeddedEnd != null) flushEmbedded();
+            while (out.length() > 1 && out.charAt(out.length() - 1) == '\n' && out.charAt(out.length() - 2) == '\n') {
+                out.setLength(out.length() - 1);
+            }
+            return out.toString();
+        }
+
+        /** Follows tags through {@code line} from {@code i}, updating depth and multi-line state. */
+        private void scan(String line, int i) {
+            while (i < line.length()) {
+                if (inTag) {
+                    i = finishTag(line, i);
+                    if (i < 0) return;
+                    continue;
+                }
+                int lt = line.indexOf('<', i);
+                if (lt < 0) return;
+                if (line.startsWith("<!--", lt)) {
+                    i = skipTo(line, lt + 4, "-->");
+                } else if (line.startsWith("<![CDATA[", lt)) {
+                    i = skipTo(line, lt + 9, "]]>");
+                } else if (line.startsWith("<!", lt) || line.startsWith("<?", lt)) {
+                    int gt = line.indexOf('>', lt);
+                    if (gt < 0) return;
+                    i = gt + 1;
+                } else if (line.startsWith("</", lt)) {
+                    depth = Math.max(0, depth - 1);
+                    int gt = line.indexOf('>', lt);
+                    if (gt < 0) return;
+                    i = gt + 1;
+                } else {
+                    int nameEnd = lt + 1;
+                    while (nameEnd < line.length() && isNameChar(line.charAt(nameEnd))) nameEnd++;
+                    if (nameEnd == lt + 1) {
+                        i = lt + 1; // a bare '<' in text
+                        continue;
+                    }
+                    tagName = line.substring(lt + 1, nameEnd);
+                    if (html) tagName = tagName.toLowerCase(Locale.ROOT);
+                    inTag = true;
+                    quote = 0;
+                    i = nameEnd;
+                }
+                if (i < 0) return;
+            }
+        }
+
+        /** Reads the rest of a start tag; returns the index after '>' or -1 if it goes on. */
+        private int finishTag(String line, int i) {
+            for (; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) quote = 0;
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '>') {
+                    inTag = false;
+                    boolean selfClosing = i > 0 && line.charAt(i - 1) == '/';
+                    if (!selfClosing && !(html && VOID_ELEMENTS.contains(tagName))) opened(line, i + 1);
+                    return embeddedEnd != null || verbatimEnd != null ? -1 : i + 1;
+                }
+            }
+            return -1;
+        }
+
+        /** An element was opened; its body ends the line's scan if it must not be parsed as markup. */
+        private void opened(String line, int bodyStart) {
+            depth++;
+            if (!html) return;
+            String end = "</" + tagName;
+            boolean script = tagName.equals("script");
+            if (script || tagName.equals("style") || VERBATIM_ELEMENTS.contains(tagName)) {
+                int close = indexOf(line, end, bodyStart);
+                if (close >= 0) {
+                    // Body and end tag on this same line: nothing special to do
+                    depth--;
+                    return;
+                }
+                if (VERBATIM_ELEMENTS.contains(tagName)) {
+                    verbatimEnd = end;
+                } else {
+                    embeddedEnd = end;
+                    embedded = CodeFormatter.forType(script ? "javascript" : "css");
+                    block.setLength(0);
+                    block.append(line.substring(bodyStart)).append('\n');
+                }
+            }
+        }
+
+        /**
+         * Formats a collected script or style body one level inside its
+         * element. The other formatter indents it, so lines it keeps verbatim
+         * (template literals, comments) stay verbatim and formatting twice
+         * changes nothing.
+         */
+        private void flushEmbedded() {
+            String body = block.toString();
+            String formatted;
+            try {
+                formatted = body.isBlank() ? "" : embedded.format(body, depth);
+            } catch (IllegalArgumentException e) {
+                // leave code the other formatter cannot handle as it was, minus the blank lines around it
+                formatted = body.isBlank() ? "" : body.replaceFirst("\\A([ \\t]*\\r?\\n)+", "").stripTrailing();
+            }
+            if (!formatted.isEmpty()) {
+                out.append(formatted);
+                if (!formatted.endsWith("\n")) out.append('\n');
+            }
+            embeddedEnd = null;
+            embedded = null;
+            block.setLength(0);
+        }
+
+        /** Index after {@code end}, or -1 with the construct left open across lines. */
+        private int skipTo(String line, int from, String end) {
+            int close = line.indexOf(end, from);
+            if (close >= 0) return close + end.length();
+            verbatimEnd = end;
+            return -1;
+        }
+
+        private int indexOf(String line, String target, int from) {
+            return html ? line.toLowerCase(Locale.ROOT).indexOf(target, from) : line.indexOf(target, from);
+        }
+
+        private void indent(int levels) {
+            for (int d = 0; d < levels; d++) out.append(INDENT);
+        }
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == ':' || c == '.';
+    }
+}
@@ -0,0 +1,278 @@
+package com.idtfe.services;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable text stored as a piece table. The pieces point into the
+ * original text or into an append-only buffer shared by every version
+ * derived from it, and are kept in a persistent treap ordered by position.
+ * An edit copies only the O(log n) nodes on its path and returns a new
+ * table, so older versions stay valid and a snapshot for a background
+ * task is just a reference.
+ */
+public final class PieceTable implements CharSequence {
+
+    /** Append-only text in fixed chunks that never move, so readers need no lock. */
+    private static final class AddBuffer {
+        private static final int CHUNK_BITS = 16;
+        private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+        private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+        private char[][] chunks = new char[4][];
+        private int length;
+
+        /** Appends {@code text} and returns the offset it starts at. */
+        synchronized int append(CharSequence text) {
+            int start = length;
+            for (int i = 0; i < text.length(); i++) {
+                int chunk = length >>> CHUNK_BITS;
+                if (chunk == chunks.length) chunks = Arrays.copyOf(chunks, chunks.length * 2);
+                if (chunks[chunk] == null) chunks[chunk] = new char[CHUNK_SIZE];
+                chunks[chunk][length & CHUNK_MASK] = text.charAt(i);
+                length++;
+            }
+            return start;
+        }
+
+        char charAt(int index) {
+            return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+        }
+
+        void copy(int start, int count, char[] dst, int at) {
+            while (count > 0) {
+                int n = Math.min(count, CHUNK_SIZE - (start & CHUNK_MASK));
+                System.arraycopy(chunks[start >>> CHUNK_BITS], start & CHUNK_MASK, dst, at, n);
+                start += n;
+                at += n;
+                count -= n;
+            }
+        }
+    }
+
+    private static final class Node {
+        final boolean added;
+        final int start;
+        final int length;
+        final Node left;
+        final Node right;
+        final int size;
+        final int priority;
+
+        Node(boolean added, int start, int length, Node left, Node right, int priority) {
+            this.added = added;
+            this.start = start;
+            this.length = length;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + length + size(right);
+            this.priority = priority;
+        }
+
+        Node with(Node left, Node right) {
+            return new Node(added, start, length, left, right, priority);
+        }
+    }
+
+    private final String original;
+    private final AddBuffer buffer;
+    private final Node root;
+    private volatile String text;
+
+    private PieceTable(String original, AddBuffer buffer, Node root) {
+        this.original = original;
+        this.buffer = buffer;
+        this.root = root;
+    }
+
+    public static PieceTable of(String text) {
+        if (text.isEmpty()) return new PieceTable("", new AddBuffer(), null);
+        PieceTable table = new PieceTable(text, new AddBuffer(), leaf(false, 0, text.length()));
+        table.text = text;
+        return table;
+    }
+
+    public static PieceTable empty() {
+        return of("");
+    }
+
+    public PieceTable insert(int at, CharSequence inserted) {
+        return replace(at, at, inserted);
+    }
+
+    public PieceTable delete(int start, int end) {
+        return replace(start, end, "");
+    }
+
+    /** Replaces {@code [start, end)} with {@code inserted}. */
+    public PieceTable replace(int start, int end, CharSequence inserted) {
+        if (start < 0 || end < start || end > length()) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") of " + length());
+        }
+        if (start == end && inserted.length() == 0) return this;
+        Node[] head = split(root, start);
+        Node[] tail = split(head[1], end - start);
+        Node left = head[0];
+        if (inserted.length() > 0) {
+            int at = buffer.append(inserted);
+            Node last = last(left);
+            if (last != null && last.added && last.start + last.length == at) {
+                // Typing: grow the piece that ends exactly where the buffer did
+                left = extendLast(left, inserted.length());
+            } else {
+                left = merge(left, leaf(true, at, inserted.length()));
+            }
+        }
+        return new PieceTable(original, buffer, merge(left, tail[1]));
+    }
+
+    @Override
+    public int length() {
+        return size(root);
+    }
+
+    /** True if there is no non-whitespace character. */
+    public boolean isBlank() {
+        for (int i = 0; i < length(); i++) {
+            if (!Character.isWhitespace(charAt(i))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) throw new IndexOutOfBoundsException("Index " + index + " of " + length());
+        Node n = root;
+        while (true) {
+            int leftSize = size(n.left);
+            if (index < leftSize) {
+                n = n.left;
+            } else if (index < leftSize + n.length) {
+                int at = n.start + index - leftSize;
+                return n.added ? buffer.charAt(at) : original.charAt(at);
+            } else {
+                index -= leftSize + n.length;
+                n = n.right;
+            }
+        }
+    }
+
+    /** A table sharing this one's pieces; O(log n), no text is copied. */
+    @Override
+    public PieceTable subSequence(int start, int end) {
+        if (start < 0 || end < start || end > length()) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") of " + length());
+        }
+        Node[] head = split(root, start);
+        Node[] mid = split(head[1], end - start);
+        return new PieceTable(original, buffer, mid[0]);
+    }
+
+    /** Number of pieces; a rough measure of fragmentation. */
+    public int pieceCount() {
+        return count(root);
+    }
+
+    /** Copies {@code [start, end)} into {@code dst} at {@code at}, like {@link String#getChars}. */
+    public void getChars(int start, int end, char[] dst, int at) {
+        if (start < 0 || end < start || end > length()) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") of " + length());
+        }
+        String cached = text;
+        if (cached != null) {
+            cached.getChars(start, end, dst, at);
+            return;
+        }
+        // In-order walk that skips subtrees outside the range
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        ArrayDeque<Integer> offsets = new ArrayDeque<>();
+        Node n = root;
+        int base = 0;
+        while (n != null || !stack.isEmpty()) {
+            while (n != null) {
+                stack.push(n);
+                offsets.push(base);
+                if (start >= base + size(n.left)) break; // nothing needed on the left
+                n = n.left;
+            }
+            n = stack.pop();
+            base = offsets.pop();
+            int pieceStart = base + size(n.left);
+            if (pieceStart >= end) return;
+            int from = Math.max(start, pieceStart);
+            int to = Math.min(end, pieceStart + n.length);
+            if (from < to) {
+                int offset = n.start + from - pieceStart;
+                if (n.added) buffer.copy(offset, to - from, dst, at);
+                else original.getChars(offset, offset + to - from, dst, at);
+                at += to - from;
+            }
+            base = pieceStart + n.length;
+            n = n.right;
+        }
+    }
+
+    @Override
+    public String toString() {
+        String cached = text;
+        if (cached == null) {
+            char[] out = new char[length()];
+            getChars(0, out.length, out, 0);
+            cached = new String(out);
+            text = cached;
+        }
+        return cached;
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private static int count(Node n) {
+        return n == null ? 0 : count(n.left) + 1 + count(n.right);
+    }
+
+    private static Node leaf(boolean added, int start, int length) {
+        return new Node(added, start, length, null, null, ThreadLocalRandom.current().nextInt());
+    }
+
+    /** Splits into the first {@code at} characters and the rest. */
+    private static Node[] split(Node n, int at) {
+        if (n == null) return new Node[2];
+        int leftSize = size(n.left);
+        if (at <= leftSize) {
+            Node[] s = split(n.left, at);
+            return new Node[] {s[0], n.with(s[1], n.right)};
+        }
+        if (at >= leftSize + n.length) {
+            Node[] s = split(n.right, at - leftSize - n.length);
+            return new Node[] {n.with(n.left, s[0]), s[1]};
+        }
+        // The cut falls inside this piece
+        int k = at - leftSize;
+        return new Node[] {
+            merge(n.left, leaf(n.added, n.start, k)),
+            merge(leaf(n.added, n.start + k, n.length - k), n.right)
+        };
+    }
+
+    /** Concatenates two trees; every position in {@code a} comes before {@code b}. */
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) return a.with(a.left, merge(a.right, b));
+        return b.with(merge(a, b.left), b.right);
+    }
+
+    private static Node last(Node n) {
+        if (n == null) return null;
+        while (n.right != null) n = n.right;
+        return n;
+    }
+
+    private static Node extendLast(Node n, int extra) {
+        if (n.right != null) return n.with(n.left, extendLast(n.right, extra));
+        return new Node(n.added, n.start, n.length + extra, n.left, null, n.priority);
+    }
+}
@@ -0,0 +1,233 @@
+package com.idtfe.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms the caches for the repository the user just selected, so the next
+ * clicks are local reads. It fetches the whole tree in one request
+ * ({@link RepoTree}), then downloads the files most likely to be opened
+ * next into the {@link BlobStore}: recently opened files of that
+ * repository, then READMEs and build files near the root.
+ *
+ * <p>Prefetching runs on its own few low-priority threads
+ * ({@code idtfe.prefetch.concurrency}), starts after a short delay so the
+ * listing the user is waiting for goes first, and is cancelled as soon as
+ * another repository is selected.
+ */
+public final class Prefetcher {
+    private static final boolean ENABLED = !Boolean.getBoolean("idtfe.prefetch.disabled");
+    private static final int CONCURRENCY = Integer.getInteger("idtfe.prefetch.concurrency", 2);
+    private static final long DELAY_MS = Long.getLong("idtfe.prefetch.delayMs", 300);
+    private static final int MAX_FILES = Integer.getInteger("idtfe.prefetch.maxFiles", 16);
+    private static final long MAX_FILE_BYTES = Long.getLong("idtfe.prefetch.maxFileBytes", 512 * 1024);
+    private static final int RECENT_PER_REPO = 20;
+
+    private static final Set<String> BUILD_FILES = Set.of(
+        "pom.xml", "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts", "package.json",
+        "tsconfig.json", "requirements.txt", "pyproject.toml", "setup.py", "cargo.toml", "go.mod", "makefile",
+        "cmakelists.txt", "dockerfile", "docker-compose.yml", "gemfile", "composer.json");
+
+    private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+    // Repository full name -> recently opened paths, most recent first; guarded by RECENT
+    private static final Map<String, Deque<String>> RECENT = new LinkedHashMap<>();
+    private static boolean recentLoaded;
+
+    /** A file to download: its blob SHA, where to get it and how likely it is to be opened (lower first). */
+    private record Candidate(String path, String sha, long size, String downloadUrl, int rank) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Future<?>> running = new ArrayList<>(); // guarded by this
+    private CompletableFuture<RepoTree> tree = new CompletableFuture<>();
+
+    private static ScheduledThreadPoolExecutor createExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(CONCURRENCY, r -> {
+            Thread t = new Thread(r, "idtfe-prefetch-" + count.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Cancels the previous repository's prefetching and starts on
+     * {@code fullName} ("owner/repo") at {@code ref}. The returned future
+     * gets the repository's tree, or fails if only the root listing could
+     * be read.
+     */
+    public synchronized CompletableFuture<RepoTree> start(String fullName, String ref) {
+        cancel();
+        CompletableFuture<RepoTree> result = new CompletableFuture<>();
+        tree = result;
+        if (!ENABLED) {
+            result.completeExceptionally(new IllegalStateException("Prefetching is disabled"));
+            return result;
+        }
+        running.add(EXECUTOR.schedule(() -> plan(fullName, ref, result), DELAY_MS, TimeUnit.MILLISECONDS));
+        return result;
+    }
+
+    /** Stops everything queued or running for the current repository. */
+    public synchronized void cancel() {
+        tree.cancel(true);
+        for (Future<?> task : running) task.cancel(true);
+        running.clear();
+    }
+
+    /** The tree of the current repository, once {@link #start} has fetched it. */
+    public synchronized CompletableFuture<RepoTree> tree() {
+        return tree;
+    }
+
+    /** Records that {@code path} of {@code fullName} was opened, so it is prefetched next time. */
+    public static void opened(String fullName, String path) {
+        synchronized (RECENT) {
+            loadRecent();
+            Deque<String> paths = RECENT.computeIfAbsent(fullName, name -> new ArrayDeque<>());
+            paths.remove(path);
+            paths.addFirst(path);
+            while (paths.size() > RECENT_PER_REPO) paths.removeLast();
+        }
+        EXECUTOR.execute(Prefetcher::saveRecent);
+    }
+
+    private void plan(String fullName, String ref, CompletableFuture<RepoTree> result) {
+        List<Candidate> candidates;
+        try {
+            RepoTree fetched = RepoTree.fetch(fullName, ref);
+            result.complete(fetched);
+            candidates = candidates(fullName, fetched);
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+            // Private repositories: the root listing still has the READMEs and build files
+            try {
+                candidates = rootListing(fullName);
+            } catch (IOException ex) {
+                return;
+            }
+        }
+        synchronized (this) {
+            if (tree != result) return; // another repository was selected meanwhile
+            for (Candidate candidate : candidates) {
+                running.add(EXECUTOR.submit(() -> download(candidate)));
+            }
+        }
+    }
+
+    private static void download(Candidate candidate) {
+        if (Thread.currentThread().isInterrupted()) return;
+        try {
+            BlobStore.getInstance().prefetch(candidate.sha(), candidate.downloadUrl());
+        } catch (IOException e) {
+            // only a guess; the file is downloaded when it is actually opened
+        }
+    }
+
+    private static List<Candidate> candidates(String fullName, RepoTree tree) {
+        List<Candidate> found = new ArrayList<>();
+        List<String> recent = recent(fullName);
+        for (RepoEntry entry : tree.entries()) {
+            if (entry.kind() != RepoEntry.Kind.FILE) continue;
+            int rank = rank(entry.path(), recent);
+            if (rank >= 0) found.add(new Candidate(entry.path(), entry.sha(), entry.size(), tree.downloadUrl(entry), rank));
+        }
+        return select(found);
+    }
+
+    private List<Candidate> rootListing(String fullName) throws IOException {
+        // Same URL the controllers list the root with, so this is normally a cache hit
+        String resp = ApiClient.getInstance().get("/api/v1/tools/github/repos/" + fullName + "/contents?path=");
+        Map<String, Object> data = objectMapper.readValue(resp, Map.class);
+        if (!(data.get("contents") instanceof List<?> contents)) return List.of();
+        List<Candidate> found = new ArrayList<>();
+        List<String> recent = recent(fullName);
+        for (Object item : contents) {
+            if (!(item instanceof Map<?, ?> file) || !"file".equals(file.get("type"))) continue;
+            String path = (String) file.get("path");
+            String url = (String) file.get("download_url");
+            int rank = path == null || url == null ? -1 : rank(path, recent);
+            long size = file.get("size") instanceof Number n ? n.longValue() : 0;
+            if (rank >= 0) found.add(new Candidate(path, (String) file.get("sha"), size, url, rank));
+        }
+        return select(found);
+    }
+
+    /** Likelihood of being opened next (lower is sooner), or -1 to leave the file alone. */
+    private static int rank(String path, List<String> recent) {
+        int index = recent.indexOf(path);
+        if (index >= 0) return index;
+        int depth = (int) path.chars().filter(c -> c == '/').count();
+        if (depth > 1) return -1;
+        String name = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+        if (name.startsWith("readme")) return 100 + depth * 10;
+        if (BUILD_FILES.contains(name)) return 200 + depth * 10;
+        return -1;
+    }
+
+    private static List<Candidate> select(List<Candidate> found) {
+        return found.stream()
+            .filter(c -> c.size() <= MAX_FILE_BYTES)
+            .sorted(Comparator.comparingInt(Candidate::rank))
+            .limit(MAX_FILES)
+            .toList();
+    }
+
+    // Recently opened paths are kept in ~/.idtfe/github/recent-files as "owner/repo<TAB>path" lines
+
+    private static List<String> recent(String fullName) {
+        synchronized (RECENT) {
+            loadRecent();
+            Deque<String> paths = RECENT.get(fullName);
+            return paths == null ? List.of() : List.copyOf(paths);
+        }
+    }
+
+    private static void loadRecent() {
+        if (recentLoaded) return;
+        recentLoaded = true;
+        try {
+            Path file = AppData.dir("github").resolve("recent-files");
+            if (!Files.exists(file)) return;
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) RECENT.computeIfAbsent(line.substring(0, tab), name -> new ArrayDeque<>()).addLast(line.substring(tab + 1));
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read recent files: " + e.getMessage());
+        }
+    }
+
+    private static void saveRecent() {
+        StringBuilder out = new StringBuilder();
+        synchronized (RECENT) {
+            RECENT.forEach((repo, paths) -> paths.forEach(path -> out.append(repo).append('\t').append(path).append('\n')));
+        }
+        try {
+            Files.writeString(AppData.dir("github").resolve("recent-files"), out, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Could not save recent files: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.idtfe.services;
+
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * One file or directory of a GitHub repository. {@code path} is relative
+ * to the repository root with {@code /} separators; {@code sha} is the git
+ * object id and {@code size} is -1 for anything but files.
+ */
+public record RepoEntry(String path, Kind kind, long size, String sha) {
+
+    public enum Kind { FILE, DIR, SYMLINK, SUBMODULE }
+
+    /** Directories first, then by name ignoring case. */
+    public static final Comparator<RepoEntry> ORDER = Comparator
+        .comparing((RepoEntry e) -> !e.isDirectory())
+        .thenComparing(RepoEntry::name, String.CASE_INSENSITIVE_ORDER)
+        .thenComparing(RepoEntry::name);
+
+    /** Converts one item of a GitHub contents listing. */
+    public static RepoEntry fromContents(Map<?, ?> item) {
+        Object path = item.get("path") != null ? item.get("path") : item.get("name");
+        Kind kind = switch (String.valueOf(item.get("type"))) {
+            case "dir" -> Kind.DIR;
+            case "symlink" -> Kind.SYMLINK;
+            case "submodule" -> Kind.SUBMODULE;
+            default -> Kind.FILE;
+        };
+        long size = kind == Kind.FILE && item.get("size") instanceof Number n ? n.longValue() : -1;
+        return new RepoEntry(String.valueOf(path), kind, size, (String) item.get("sha"));
+    }
+
+    /** Last path segment. */
+    public String name() {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /** Path of the containing directory, "" at the root. */
+    public String parent() {
+        int slash = path.lastIndexOf('/');
+        return slash < 0 ? "" : path.substring(0, slash);
+    }
+
+    public boolean isDirectory() {
+        return kind == Kind.DIR;
+    }
+}
@@ -0,0 +1,146 @@
+package com.idtfe.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every file and directory of a GitHub repository at one ref, fetched with
+ * a single recursive request to the git trees API instead of one contents
+ * listing per directory. The response goes through {@link ApiClient}'s
+ * cache, so fetching the same tree again is usually a 304. Only public
+ * repositories can be read this way; callers fall back to the backend's
+ * contents listings when it fails.
+ */
+public final class RepoTree {
+    private static final String API_URL = System.getProperty("idtfe.github.api", "https://api.github.com");
+    private static final String RAW_URL = System.getProperty("idtfe.github.raw", "https://raw.githubusercontent.com");
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final String fullName;
+    private final String ref;
+    private final List<RepoEntry> entries;
+    private final boolean truncated;
+    private Map<String, List<RepoEntry>> children; // directory path -> sorted entries, built on first use
+
+    private RepoTree(String fullName, String ref, List<RepoEntry> entries, boolean truncated) {
+        this.fullName = fullName;
+        this.ref = ref;
+        this.entries = Collections.unmodifiableList(entries);
+        this.truncated = truncated;
+    }
+
+    /** Fetches the tree of {@code fullName} ("owner/repo") at {@code ref}, e.g. the default branch. */
+    public static RepoTree fetch(String fullName, String ref) throws IOException {
+        String url = API_URL + "/repos/" + fullName + "/git/trees/" + encode(ref) + "?recursive=1";
+        return parse(fullName, ref, ApiClient.getInstance().rawGet(url));
+    }
+
+    /** Drops cached trees of {@code fullName} after it was changed, so the next fetch sees the new SHAs. */
+    public static void invalidate(String fullName) {
+        ApiClient.getInstance().invalidateCache(API_URL + "/repos/" + fullName + "/");
+    }
+
+    /** Reads a trees API response with a streaming parser; large trees have 100k+ entries. */
+    static RepoTree parse(String fullName, String ref, String json) throws IOException {
+        List<RepoEntry> entries = new ArrayList<>();
+        boolean truncated = false;
+        String message = null;
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) throw new IOException("Unexpected tree response");
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "tree" -> {
+                        if (value != JsonToken.START_ARRAY) throw new IOException("Unexpected tree response");
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            RepoEntry entry = entry(parser);
+                            if (entry != null) entries.add(entry);
+                        }
+                    }
+                    case "truncated" -> truncated = value == JsonToken.VALUE_TRUE;
+                    case "message" -> message = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        if (message != null && entries.isEmpty()) throw new IOException("GitHub: " + message);
+        return new RepoTree(fullName, ref, entries, truncated);
+    }
+
+    private static RepoEntry entry(JsonParser parser) throws IOException {
+        String path = null;
+        String type = null;
+        String mode = null;
+        String sha = null;
+        long size = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "path" -> path = parser.getText();
+                case "type" -> type = parser.getText();
+                case "mode" -> mode = parser.getText();
+                case "sha" -> sha = parser.getText();
+                case "size" -> size = parser.getLongValue();
+                default -> parser.skipChildren();
+            }
+        }
+        if (path == null || type == null) return null;
+        RepoEntry.Kind kind = switch (type) {
+            case "tree" -> RepoEntry.Kind.DIR;
+            case "commit" -> RepoEntry.Kind.SUBMODULE;
+            default -> "120000".equals(mode) ? RepoEntry.Kind.SYMLINK : RepoEntry.Kind.FILE;
+        };
+        return new RepoEntry(path, kind, kind == RepoEntry.Kind.FILE ? size : -1, sha);
+    }
+
+    public String fullName() {
+        return fullName;
+    }
+
+    public String ref() {
+        return ref;
+    }
+
+    /** All entries in the order GitHub lists them (each directory before its contents). */
+    public List<RepoEntry> entries() {
+        return entries;
+    }
+
+    /** Entries directly inside directory {@code dir} ("" for the root), directories first. */
+    public synchronized List<RepoEntry> children(String dir) {
+        if (children == null) {
+            children = new HashMap<>();
+            for (RepoEntry entry : entries) children.computeIfAbsent(entry.parent(), d -> new ArrayList<>()).add(entry);
+            for (List<RepoEntry> list : children.values()) list.sort(RepoEntry.ORDER);
+        }
+        return children.getOrDefault(dir, List.of());
+    }
+
+    /** Whether GitHub cut the listing short; very large repositories are not listed completely. */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /** Where the raw bytes of a file in this tree can be downloaded. */
+    public String downloadUrl(RepoEntry entry) {
+        StringBuilder url = new StringBuilder(RAW_URL).append('/').append(fullName).append('/').append(encode(ref));
+        for (String segment : entry.path().split("/")) url.append('/').append(encode(segment));
+        return url.toString();
+    }
+
+    private static String encode(String segment) {
+        return URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
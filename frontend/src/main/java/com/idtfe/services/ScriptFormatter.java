@@ -0,0 +1,137 @@
+package com.idtfe.services;
+
+/**
+ * Re-indents JavaScript by bracket depth. Only leading whitespace changes:
+ * each line is indented by the number of {@code { [ (} still open before
+ * it, ignoring brackets in strings, comments, template literals and regex
+ * literals, and runs of blank lines are collapsed. Lines inside a
+ * multi-line template literal or comment are kept exactly, since their
+ * whitespace may matter.
+ */
+final class ScriptFormatter implements CodeFormatter {
+
+    private enum State { CODE, BLOCK_COMMENT, TEMPLATE }
+
+    @Override
+    public String format(CharSequence text) {
+        return format(text, 0);
+    }
+
+    @Override
+    public String format(CharSequence text, int levels) {
+        String source = text.toString();
+        StringBuilder out = new StringBuilder(source.length() + source.length() / 4);
+        State state = State.CODE;
+        int depth = 0;
+        boolean blank = false;
+        int start = 0;
+        while (start <= source.length()) {
+            int end = source.indexOf('\n', start);
+            if (end < 0) end = source.length();
+            String line = source.substring(start, end);
+            if (line.endsWith("\r")) line = line.substring(0, line.length() - 1);
+            start = end + 1;
+            if (state != State.CODE) {
+                out.append(line).append('\n');
+            } else {
+                String stripped = line.strip();
+                if (stripped.isEmpty()) {
+                    if (!blank && out.length() > 0) out.append('\n');
+                    blank = true;
+                    continue;
+                }
+                blank = false;
+                int closers = 0;
+                while (closers < stripped.length() && "}])".indexOf(stripped.charAt(closers)) >= 0) closers++;
+                for (int d = Math.max(0, depth - closers) + levels; d > 0; d--) out.append(INDENT);
+                out.append(stripped).append('\n');
+                line = stripped;
+            }
+            // Track brackets and multi-line constructs through the line
+            int i = 0;
+            while (i < line.length()) {
+                char c = line.charAt(i);
+                if (state == State.BLOCK_COMMENT) {
+                    int close = line.indexOf("*/", i);
+                    if (close < 0) break;
+                    state = State.CODE;
+                    i = close + 2;
+                    continue;
+                }
+                if (state == State.TEMPLATE) {
+                    i = skipTemplate(line, i);
+                    if (i < 0) break;
+                    state = State.CODE;
+                    continue;
+                }
+                if (c == '/' && i + 1 < line.length() && line.charAt(i + 1) == '/') break;
+                if (c == '/' && i + 1 < line.length() && line.charAt(i + 1) == '*') {
+                    state = State.BLOCK_COMMENT;
+                    i += 2;
+                } else if (c == '"' || c == '\'') {
+                    i = skipQuoted(line, i, c);
+                } else if (c == '`') {
+                    state = State.TEMPLATE;
+                    i++;
+                } else if (c == '/' && startsRegex(line, i)) {
+                    i = skipRegex(line, i);
+                } else {
+                    if (c == '{' || c == '[' || c == '(') depth++;
+                    else if (c == '}' || c == ']' || c == ')') depth = Math.max(0, depth - 1);
+                    i++;
+                }
+            }
+        }
+        // Drop the newline added for the end of input and any trailing blank line
+        while (out.length() > 1 && out.charAt(out.length() - 1) == '\n' && out.charAt(out.length() - 2) == '\n') {
+            out.setLength(out.length() - 1);
+        }
+        return out.toString();
+    }
+
+    /** Index after the closing quote, or the line length if the string is unterminated. */
+    private static int skipQuoted(String line, int start, char quote) {
+        for (int i = start + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\') i++;
+            else if (c == quote) return i + 1;
+        }
+        return line.length();
+    }
+
+    /** Index after the closing backtick, or -1 if the template continues on the next line. */
+    private static int skipTemplate(String line, int start) {
+        for (int i = start; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\') i++;
+            else if (c == '`') return i + 1;
+        }
+        return -1;
+    }
+
+    /** A slash starts a regex literal when it cannot be a division, i.e. no value comes before it. */
+    private static boolean startsRegex(String line, int at) {
+        int i = at - 1;
+        while (i >= 0 && Character.isWhitespace(line.charAt(i))) i--;
+        if (i < 0) return true;
+        char prev = line.charAt(i);
+        if ("(,=:[!&|?{};+-*%<>~^".indexOf(prev) >= 0) return true;
+        // keywords such as return or typeof can also precede a regex
+        int wordEnd = i + 1;
+        while (i >= 0 && Character.isLetter(line.charAt(i))) i--;
+        String word = line.substring(i + 1, wordEnd);
+        return word.equals("return") || word.equals("typeof") || word.equals("case") || word.equals("in");
+    }
+
+    private static int skipRegex(String line, int start) {
+        boolean inClass = false;
+        for (int i = start + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\') i++;
+            else if (c == '[') inClass = true;
+            else if (c == ']') inClass = false;
+            else if (c == '/' && !inClass) return i + 1;
+        }
+        return line.length();
+    }
+}
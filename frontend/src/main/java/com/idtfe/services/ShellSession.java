@@ -0,0 +1,204 @@
+package com.idtfe.services;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A long-lived shell process that runs commands one after another, so the
+ * working directory, exported variables and functions carry over between
+ * commands. Completion is detected by a per-session sentinel that the
+ * shell prints together with the command's exit status.
+ */
+public class ShellSession implements AutoCloseable {
+    private static final long INTERRUPT_POLL_MS = 50;
+    // Reported for an interrupted command, as a shell does for one stopped by SIGINT
+    private static final int INTERRUPTED_STATUS = 130;
+    private static final boolean WINDOWS = System.getProperty("os.name").toLowerCase().contains("win");
+
+    private final Process shell;
+    private final Writer stdin;
+    private final String marker = "__IDTFE_" + UUID.randomUUID().toString().replace("-", "") + "_";
+    // Commands written to the shell whose sentinel has not been seen yet, oldest first
+    private final ArrayDeque<PendingCommand> pending = new ArrayDeque<>();
+    private final StringBuilder carry = new StringBuilder();
+    private volatile TerminalService.OutputListener lastListener;
+
+    private static final class PendingCommand {
+        final TerminalService.OutputListener listener;
+        final CompletableFuture<Integer> exitCode = new CompletableFuture<>();
+        volatile boolean interrupted;
+
+        PendingCommand(TerminalService.OutputListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    ShellSession() throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(WINDOWS
+            ? List.of("cmd.exe", "/Q", "/K", "prompt", "$H")
+            : List.of("/bin/sh"));
+        pb.redirectErrorStream(true);
+        this.shell = pb.start();
+        this.stdin = new OutputStreamWriter(shell.getOutputStream());
+        TaskExecutor.getInstance().startThread("idtfe-shell", this::readLoop);
+        shell.onExit().thenRun(() -> failPending(new IOException("Shell session ended")));
+    }
+
+    public boolean isAlive() {
+        return shell.isAlive();
+    }
+
+    /** Queues {@code command}; output is streamed to {@code listener} until the command's sentinel arrives. */
+    public TerminalService.RunningCommand run(String command, TerminalService.OutputListener listener) {
+        PendingCommand cmd = new PendingCommand(listener);
+        synchronized (pending) {
+            if (!shell.isAlive()) {
+                cmd.exitCode.completeExceptionally(new IOException("Shell session ended"));
+            } else {
+                pending.addLast(cmd);
+                try {
+                    stdin.write(wrap(command));
+                    stdin.flush();
+                } catch (IOException e) {
+                    pending.remove(cmd);
+                    cmd.exitCode.completeExceptionally(e);
+                }
+            }
+        }
+        return new TerminalService.RunningCommand(cmd.exitCode, this::interruptCurrent);
+    }
+
+    /**
+     * Kills every program the current command runs until its sentinel
+     * arrives, so later programs of a compound command are stopped too.
+     * Shell builtins between them ({@code echo}, {@code cd}, assignments)
+     * still run: the session's shell cannot abort a command list without
+     * exiting. The command reports exit status 130 whatever its last step
+     * returned.
+     */
+    public void interruptCurrent() {
+        PendingCommand current;
+        synchronized (pending) {
+            current = pending.peekFirst();
+        }
+        if (current == null) return;
+        current.interrupted = true;
+        TaskExecutor.getInstance().startThread("idtfe-shell-interrupt", () -> {
+            while (!current.exitCode.isDone() && shell.isAlive()) {
+                shell.descendants().forEach(ProcessHandle::destroyForcibly);
+                try {
+                    Thread.sleep(INTERRUPT_POLL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        try {
+            stdin.write("exit\n");
+            stdin.close();
+        } catch (IOException e) {
+            // already gone
+        }
+        shell.descendants().forEach(ProcessHandle::destroyForcibly);
+        shell.destroy();
+        failPending(new CancellationException("Shell session closed"));
+    }
+
+    private String wrap(String command) {
+        if (WINDOWS) {
+            return command + "\r\necho " + marker + "%ERRORLEVEL%\r\n";
+        }
+        // 'command eval' keeps syntax errors from exiting the shell, and
+        // </dev/null stops the command from swallowing the next sentinel
+        return "command eval '" + command.replace("'", "'\\''") + "' </dev/null\n"
+            + "printf '%s%s\\n' '" + marker + "' \"$?\"\n";
+    }
+
+    private void readLoop() {
+        char[] buffer = new char[8192];
+        try (Reader reader = new InputStreamReader(shell.getInputStream())) {
+            int n;
+            while ((n = reader.read(buffer)) != -1) {
+                carry.append(buffer, 0, n);
+                consume();
+            }
+        } catch (IOException e) {
+            // shell stream closed
+        }
+        if (carry.length() > 0) deliver(carry.toString());
+    }
+
+    private void consume() {
+        while (true) {
+            int idx = carry.indexOf(marker);
+            if (idx < 0) {
+                // Hold back a tail that might be the start of a split sentinel
+                int keep = 0;
+                for (int k = Math.min(marker.length() - 1, carry.length()); k > 0; k--) {
+                    if (marker.startsWith(carry.substring(carry.length() - k))) {
+                        keep = k;
+                        break;
+                    }
+                }
+                deliver(carry.substring(0, carry.length() - keep));
+                carry.delete(0, carry.length() - keep);
+                return;
+            }
+            deliver(carry.substring(0, idx));
+            carry.delete(0, idx);
+            int eol = carry.indexOf("\n", marker.length());
+            if (eol < 0) return; // exit status not fully read yet
+
+            String status = carry.substring(marker.length(), eol).trim();
+            carry.delete(0, eol + 1);
+            PendingCommand done;
+            synchronized (pending) {
+                done = pending.pollFirst();
+            }
+            if (done != null) {
+                int code;
+                try {
+                    code = Integer.parseInt(status);
+                } catch (NumberFormatException e) {
+                    code = -1;
+                }
+                done.exitCode.complete(done.interrupted ? INTERRUPTED_STATUS : code);
+            }
+        }
+    }
+
+    private void deliver(String text) {
+        if (text.isEmpty()) return;
+        PendingCommand current;
+        synchronized (pending) {
+            current = pending.peekFirst();
+        }
+        // Output from background jobs goes to whoever ran the last command
+        TerminalService.OutputListener listener = current != null ? current.listener : lastListener;
+        if (listener != null) {
+            lastListener = listener;
+            listener.onOutput(text, false);
+        }
+    }
+
+    private void failPending(Throwable reason) {
+        synchronized (pending) {
+            while (!pending.isEmpty()) {
+                pending.pollFirst().exitCode.completeExceptionally(reason);
+            }
+        }
+    }
+}
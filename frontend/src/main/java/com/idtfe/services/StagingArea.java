@@ -0,0 +1,156 @@
+package com.idtfe.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Files of one GitHub repository edited during this session and waiting to
+ * be pushed. {@link #push} sends them all as a single commit in one
+ * request; servers without the batch endpoint get one request per file.
+ * There is one staging area per repository for the whole session, so
+ * closing and reopening a view keeps what was staged. Each staged file is
+ * also kept in an {@link EditJournal} until it is pushed or unstaged, so a
+ * crash or exit offers it for recovery at the next start like any other
+ * unsaved document.
+ */
+public final class StagingArea {
+    private static final Map<String, StagingArea> REPOSITORIES = new ConcurrentHashMap<>();
+
+    /** A staged file: the text to push for {@code path}. */
+    public record StagedFile(String path, PieceTable text) {
+    }
+
+    private final String fullName;
+    private final Map<String, PieceTable> files = new LinkedHashMap<>(); // guarded by this
+    private final Map<String, EditJournal> journals = new HashMap<>(); // guarded by this
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private StagingArea(String fullName) {
+        this.fullName = fullName;
+    }
+
+    /** The staging area of {@code fullName} ("owner/repo"). */
+    public static StagingArea of(String fullName) {
+        return REPOSITORIES.computeIfAbsent(fullName, StagingArea::new);
+    }
+
+    /** Stages {@code text} for {@code path}, replacing whatever was staged for it. */
+    public synchronized void stage(String path, PieceTable text) {
+        PieceTable previous = files.put(path, text);
+        EditJournal journal = journals.get(path);
+        if (journal == null) {
+            try {
+                journal = EditJournal.open("Git repo");
+            } catch (IOException e) {
+                return; // staged in memory only
+            }
+            journal.describe(null, fullName + "/" + path + " (staged)");
+            journal.reset(PieceTable.empty());
+            journals.put(path, journal);
+            previous = PieceTable.empty();
+        }
+        // The whole staged text is the unsaved change to recover
+        journal.edit(0, previous == null ? 0 : previous.length(), text.toString(), text);
+    }
+
+    public synchronized void unstage(String path) {
+        PieceTable text = files.remove(path);
+        if (text != null) release(path, text);
+    }
+
+    /** The staged text of {@code path}, or null. */
+    public synchronized PieceTable get(String path) {
+        return files.get(path);
+    }
+
+    public synchronized List<StagedFile> files() {
+        List<StagedFile> staged = new ArrayList<>(files.size());
+        files.forEach((path, text) -> staged.add(new StagedFile(path, text)));
+        return staged;
+    }
+
+    public synchronized int size() {
+        return files.size();
+    }
+
+    /**
+     * Pushes everything staged as one commit on {@code branch} and returns
+     * the files that were pushed; they are unstaged unless staged again
+     * meanwhile. {@code progress} gets the fraction done (0 to 1) on the
+     * calling thread. Blocks; call from a background thread.
+     */
+    public List<StagedFile> push(String branch, String message, DoubleConsumer progress) throws IOException {
+        List<StagedFile> batch = files();
+        if (batch.isEmpty()) return batch;
+        List<Map<String, String>> changes = new ArrayList<>(batch.size());
+        for (StagedFile file : batch) changes.add(Map.of("path", file.path(), "content", file.text().toString()));
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("message", message);
+        if (branch != null) payload.put("branch", branch);
+        payload.put("files", changes);
+        try {
+            // The server writes the blobs, one tree and one commit, then moves the branch
+            String resp = ApiClient.getInstance().postWithProgress(endpoint("commit"), payload, sent -> progress.accept(sent * 0.9));
+            check(resp);
+            pushed(batch);
+            invalidate();
+            progress.accept(1);
+            return batch;
+        } catch (ApiClient.HttpStatusException e) {
+            if (e.getStatus() != 404 && e.getStatus() != 405) throw e;
+        }
+        // No batch endpoint: one request, and one commit, per file
+        List<StagedFile> done = new ArrayList<>(batch.size());
+        try {
+            for (StagedFile file : batch) {
+                check(ApiClient.getInstance().post(endpoint("file"),
+                    Map.of("path", file.path(), "content", changes.get(done.size()).get("content"), "message", message)));
+                done.add(file);
+                pushed(List.of(file));
+                progress.accept((double) done.size() / batch.size());
+            }
+        } finally {
+            if (!done.isEmpty()) invalidate();
+        }
+        return done;
+    }
+
+    private String endpoint(String action) {
+        return "/api/v1/tools/github/repos/" + fullName + "/" + action;
+    }
+
+    private void check(String resp) throws IOException {
+        Map<String, Object> data = objectMapper.readValue(resp, Map.class);
+        if (!(Boolean) data.getOrDefault("success", false)) throw new IOException(String.valueOf(data.get("message")));
+    }
+
+    /** Unstages pushed files whose staged text has not changed since. */
+    private synchronized void pushed(List<StagedFile> batch) {
+        for (StagedFile file : batch) {
+            if (files.remove(file.path(), file.text())) release(file.path(), file.text());
+        }
+    }
+
+    /** Drops the recovery journal of a file that is no longer staged. Caller holds the lock. */
+    private void release(String path, PieceTable text) {
+        EditJournal journal = journals.remove(path);
+        if (journal != null) {
+            journal.saved(text);
+            journal.close();
+        }
+    }
+
+    /** The pushed files and their listings changed; don't serve them from the caches. */
+    private void invalidate() {
+        ApiClient.getInstance().invalidateCache("/api/v1/tools/github/repos/" + fullName + "/");
+        RepoTree.invalidate(fullName);
+    }
+}
@@ -0,0 +1,207 @@
+package com.idtfe.services;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide executor for background work. Uses one virtual thread per
+ * task when the JDK supports it (21+), otherwise a bounded pool of named
+ * daemon platform threads. The pool is for short tasks; loops that block
+ * for as long as something stays open go through {@link #startThread}.
+ */
+public class TaskExecutor {
+    private static TaskExecutor instance;
+
+    private static final int POOL_SIZE = Integer.getInteger("idtfe.tasks.poolSize",
+        Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private static final int QUEUE_CAPACITY = Integer.getInteger("idtfe.tasks.queueCapacity", 1024);
+    private static final long SHUTDOWN_GRACE_MS = 2000;
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicInteger dedicated = new AtomicInteger();
+
+    private TaskExecutor() {
+        ExecutorService virtual = createVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : createPlatformThreadExecutor();
+    }
+
+    public static synchronized TaskExecutor getInstance() {
+        if (instance == null) {
+            instance = new TaskExecutor();
+        }
+        return instance;
+    }
+
+    public void execute(Runnable task) {
+        Runnable tracked = track(task);
+        try {
+            executor.execute(tracked);
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    public Future<?> submit(Runnable task) {
+        return submit(Executors.callable(task));
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        queued.incrementAndGet();
+        AtomicBoolean dequeued = new AtomicBoolean();
+        FutureTask<T> future = new FutureTask<>(() -> {
+            if (dequeued.compareAndSet(false, true)) queued.decrementAndGet();
+            active.incrementAndGet();
+            try {
+                return task.call();
+            } finally {
+                finished();
+            }
+        }) {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                // A task cancelled before it starts never runs, so it leaves the queue here
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled && dequeued.compareAndSet(false, true)) queued.decrementAndGet();
+                return cancelled;
+            }
+        };
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+        return future;
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running;
+        try {
+            running = submit(() -> {
+                try {
+                    result.complete(task.get());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        // Cancelling the returned future interrupts the worker running the task
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) running.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * Runs {@code loop} on a new daemon thread of its own, e.g. a reader that
+     * lives as long as its process. On the bounded pool such a loop would
+     * hold a worker for good and starve every other task.
+     */
+    public Thread startThread(String name, Runnable loop) {
+        Thread t = new Thread(loop, name + "-" + dedicated.incrementAndGet());
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    private Runnable track(Runnable task) {
+        queued.incrementAndGet();
+        return () -> {
+            started();
+            try {
+                task.run();
+            } finally {
+                finished();
+            }
+        };
+    }
+
+    private void started() {
+        queued.decrementAndGet();
+        active.incrementAndGet();
+    }
+
+    private void finished() {
+        active.decrementAndGet();
+        completed.incrementAndGet();
+    }
+
+    /** Tasks submitted but not yet started. */
+    public int getQueueDepth() {
+        return Math.max(0, queued.get());
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_GRACE_MS, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService createPlatformThreadExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread t = new Thread(runnable, "idtfe-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 30L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(QUEUE_CAPACITY), factory, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // Looked up reflectively so the app still compiles and runs on JDK 17
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "idtfe-vthread-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
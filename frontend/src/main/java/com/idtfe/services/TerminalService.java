@@ -1,31 +1,115 @@
 package com.idtfe.services;
 
-import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 
 public class TerminalService {
+
+    /** Receives output as it is produced; called from background reader threads. */
+    @FunctionalInterface
+    public interface OutputListener {
+        void onOutput(String chunk, boolean stderr);
+    }
+
+    /** Handle to a command started with {@link #start} or {@link ShellSession#run}. */
+    public static class RunningCommand {
+        private final CompletableFuture<Integer> exitCode;
+        private final Runnable canceller;
+
+        RunningCommand(CompletableFuture<Integer> exitCode, Runnable canceller) {
+            this.exitCode = exitCode;
+            this.canceller = canceller;
+        }
+
+        /** Completes with the exit code once the process has exited and all output was delivered. */
+        public CompletableFuture<Integer> exitCode() {
+            return exitCode;
+        }
+
+        public boolean isRunning() {
+            return !exitCode.isDone();
+        }
+
+        /** Terminates the command and any children it spawned. */
+        public void cancel() {
+            canceller.run();
+        }
+    }
+
     public String runCommand(String command) {
         StringBuilder out = new StringBuilder();
         try {
-            ProcessBuilder pb = new ProcessBuilder();
-            // Run via system shell for cross-platform
-            if (System.getProperty("os.name").toLowerCase().contains("win")) {
-                pb.command("cmd.exe", "/c", command);
-            } else {
-                pb.command("/bin/sh", "-c", command);
-            }
-            pb.redirectErrorStream(true);
-            Process p = pb.start();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    out.append(line).append(System.lineSeparator());
+            RunningCommand running = start(command, (chunk, stderr) -> {
+                synchronized (out) {
+                    out.append(chunk);
                 }
-            }
-            p.waitFor();
+            }, true);
+            running.exitCode().join();
         } catch (Exception e) {
             out.append("Error: ").append(e.getMessage());
         }
         return out.toString();
     }
+
+    /**
+     * Starts {@code command} in the system shell and streams its output to
+     * {@code listener} chunk by chunk. With {@code mergeStderr} both streams
+     * arrive interleaved as stdout; otherwise stderr chunks are flagged.
+     */
+    public RunningCommand start(String command, OutputListener listener, boolean mergeStderr) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(shellCommand(command));
+        pb.redirectErrorStream(mergeStderr);
+        Process p = pb.start();
+        p.getOutputStream().close();
+
+        CountDownLatch pumps = new CountDownLatch(mergeStderr ? 1 : 2);
+        CompletableFuture<Void> drained = new CompletableFuture<>();
+        pump(p.getInputStream(), false, listener, pumps, drained);
+        if (!mergeStderr) {
+            pump(p.getErrorStream(), true, listener, pumps, drained);
+        }
+
+        // Completes once the process has exited and all its output was delivered, without parking a worker
+        CompletableFuture<Integer> exitCode = p.onExit().thenCombine(drained, (exited, none) -> exited.exitValue());
+        return new RunningCommand(exitCode, () -> {
+            p.descendants().forEach(ProcessHandle::destroyForcibly);
+            p.destroyForcibly();
+        });
+    }
+
+    /** Starts a persistent shell; the caller owns it and must close it. */
+    public ShellSession openSession() throws IOException {
+        return new ShellSession();
+    }
+
+    private void pump(InputStream stream, boolean stderr, OutputListener listener, CountDownLatch done, CompletableFuture<Void> drained) {
+        // Reads until the process exits, which may be never (servers, tail -f)
+        TaskExecutor.getInstance().startThread(stderr ? "idtfe-stderr" : "idtfe-stdout", () -> {
+            char[] buffer = new char[8192];
+            try (Reader reader = new InputStreamReader(stream)) {
+                int n;
+                while ((n = reader.read(buffer)) != -1) {
+                    listener.onOutput(new String(buffer, 0, n), stderr);
+                }
+            } catch (IOException e) {
+                // Stream closed because the process was killed
+            } finally {
+                done.countDown();
+                if (done.getCount() == 0) drained.complete(null);
+            }
+        });
+    }
+
+    static List<String> shellCommand(String command) {
+        // Run via system shell for cross-platform
+        if (System.getProperty("os.name").toLowerCase().contains("win")) {
+            return List.of("cmd.exe", "/c", command);
+        }
+        return List.of("/bin/sh", "-c", command);
+    }
 }
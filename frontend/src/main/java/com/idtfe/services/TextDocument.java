@@ -0,0 +1,125 @@
+package com.idtfe.services;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Editable text backed by a {@link PieceTable}, with an undo history made
+ * of the edits themselves (offset, removed and inserted text) rather than
+ * copies of the document. Consecutive typing or deleting within a second
+ * is merged into one undo step. Not thread-safe: mutate it from the FX
+ * thread and hand {@link #snapshot()} to background work.
+ */
+public class TextDocument {
+    private static final int MAX_UNDO = Integer.getInteger("idtfe.editor.undoLimit", 1000);
+    private static final long MERGE_WINDOW_NANOS = 1_000_000_000L;
+
+    /** One change: {@code removed} at {@code offset} was replaced by {@code inserted}. */
+    public record Edit(int offset, String removed, String inserted) {
+        public Edit inverse() {
+            return new Edit(offset, inserted, removed);
+        }
+    }
+
+    private PieceTable text;
+    private final Deque<Edit> undo = new ArrayDeque<>();
+    private final Deque<Edit> redo = new ArrayDeque<>();
+    private long lastEditNanos;
+    private long version;
+
+    public TextDocument(String initial) {
+        this.text = PieceTable.of(initial);
+    }
+
+    /** Immutable view of the current text; cheap, and safe to read from any thread. */
+    public PieceTable snapshot() {
+        return text;
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    /** Incremented on every change, including undo and redo. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Replaces the whole text and forgets the history, e.g. after opening a file. */
+    public void reset(String initial) {
+        text = PieceTable.of(initial);
+        undo.clear();
+        redo.clear();
+        version++;
+    }
+
+    /** Applies an edit made by the user and records it for undo. */
+    public Edit replace(int start, int end, String inserted) {
+        Edit edit = new Edit(start, text.subSequence(start, end).toString(), inserted);
+        if (edit.removed().isEmpty() && inserted.isEmpty()) return edit;
+        text = text.replace(start, end, inserted);
+        version++;
+        redo.clear();
+        record(edit);
+        return edit;
+    }
+
+    public boolean canUndo() {
+        return !undo.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redo.isEmpty();
+    }
+
+    /** Reverts the last step; returns the change that was applied, or null. */
+    public Edit undo() {
+        Edit edit = undo.pollLast();
+        if (edit == null) return null;
+        Edit applied = edit.inverse();
+        apply(applied);
+        redo.addLast(edit);
+        lastEditNanos = 0; // the next edit starts a new step
+        return applied;
+    }
+
+    /** Re-applies the last undone step; returns the change that was applied, or null. */
+    public Edit redo() {
+        Edit edit = redo.pollLast();
+        if (edit == null) return null;
+        apply(edit);
+        undo.addLast(edit);
+        lastEditNanos = 0;
+        return edit;
+    }
+
+    private void apply(Edit edit) {
+        text = text.replace(edit.offset(), edit.offset() + edit.removed().length(), edit.inserted());
+        version++;
+    }
+
+    private void record(Edit edit) {
+        long now = System.nanoTime();
+        Edit last = undo.peekLast();
+        Edit merged = null;
+        if (last != null && now - lastEditNanos < MERGE_WINDOW_NANOS && !edit.inserted().contains("\n")) {
+            boolean typing = last.removed().isEmpty() && edit.removed().isEmpty()
+                && last.offset() + last.inserted().length() == edit.offset();
+            boolean backspacing = last.inserted().isEmpty() && edit.inserted().isEmpty()
+                && edit.offset() + edit.removed().length() == last.offset();
+            boolean deleting = last.inserted().isEmpty() && edit.inserted().isEmpty()
+                && edit.offset() == last.offset();
+            if (typing) merged = new Edit(last.offset(), "", last.inserted() + edit.inserted());
+            else if (backspacing) merged = new Edit(edit.offset(), edit.removed() + last.removed(), "");
+            else if (deleting) merged = new Edit(last.offset(), last.removed() + edit.removed(), "");
+        }
+        if (merged != null) {
+            undo.pollLast();
+            undo.addLast(merged);
+        } else {
+            undo.addLast(edit);
+            if (undo.size() > MAX_UNDO) undo.pollFirst();
+        }
+        lastEditNanos = now;
+    }
+}
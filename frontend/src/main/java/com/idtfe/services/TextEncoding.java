@@ -0,0 +1,112 @@
+package com.idtfe.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * How a text file is stored on disk: its charset, whether it starts with a
+ * byte order mark, and which line separator it uses. Editors work on text
+ * with plain {@code \n} line breaks; {@link #decode} and
+ * {@link EditorService#save} convert to and from the file's own form so a
+ * save does not silently rewrite a file's encoding or line endings.
+ */
+public record TextEncoding(Charset charset, boolean bom, String lineSeparator) {
+    /** Used for new files. */
+    public static final TextEncoding DEFAULT = new TextEncoding(StandardCharsets.UTF_8, false, "\n");
+
+    // Files that are not valid UTF-8 are read in this charset; ISO-8859-1 maps every byte, so they round-trip unchanged
+    private static final Charset FALLBACK = Charset.forName(System.getProperty("idtfe.editor.fallbackCharset", "ISO-8859-1"));
+    private static final int DETECT_BYTES = 64 * 1024;
+
+    /** Detects the encoding of the first {@code length} bytes of a file; {@code complete} if that is the whole file. */
+    public static TextEncoding detect(byte[] bytes, int length, boolean complete) {
+        Charset charset;
+        int skip;
+        if (startsWith(bytes, length, 0xEF, 0xBB, 0xBF)) {
+            charset = StandardCharsets.UTF_8;
+            skip = 3;
+        } else if (startsWith(bytes, length, 0xFE, 0xFF)) {
+            charset = StandardCharsets.UTF_16BE;
+            skip = 2;
+        } else if (startsWith(bytes, length, 0xFF, 0xFE)) {
+            charset = StandardCharsets.UTF_16LE;
+            skip = 2;
+        } else {
+            charset = isUtf8(bytes, length, complete) ? StandardCharsets.UTF_8 : FALLBACK;
+            skip = 0;
+        }
+        return new TextEncoding(charset, skip > 0, lineSeparator(bytes, skip, length, charset));
+    }
+
+    /** Detects the encoding of an existing file from its first bytes. */
+    public static TextEncoding of(Path path) throws IOException {
+        byte[] head = new byte[DETECT_BYTES];
+        int n = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while (n < head.length && (read = in.read(head, n, head.length - n)) > 0) n += read;
+            return detect(head, n, in.read() < 0);
+        }
+    }
+
+    /** The file's text with the BOM dropped and line breaks turned into {@code \n}. */
+    public String decode(byte[] bytes) {
+        int skip = bom ? bomBytes().length : 0;
+        String text = new String(bytes, skip, bytes.length - skip, charset);
+        return lineSeparator.equals("\n") ? text : text.replace(lineSeparator, "\n");
+    }
+
+    /** The byte order mark written before the text when {@link #bom()} is set. */
+    public byte[] bomBytes() {
+        if (charset.equals(StandardCharsets.UTF_16BE)) return new byte[] {(byte) 0xFE, (byte) 0xFF};
+        if (charset.equals(StandardCharsets.UTF_16LE)) return new byte[] {(byte) 0xFF, (byte) 0xFE};
+        return new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    }
+
+    private static boolean startsWith(byte[] bytes, int length, int... prefix) {
+        if (length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xFF) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean isUtf8(byte[] bytes, int length, boolean complete) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer in = ByteBuffer.wrap(bytes, 0, length);
+        CharBuffer out = CharBuffer.allocate(8192);
+        while (true) {
+            // An incomplete head may end inside a character; that is underflow, not an error
+            var result = decoder.decode(in, out, complete);
+            if (result.isError()) return false;
+            if (result.isUnderflow()) return true;
+            out.clear();
+        }
+    }
+
+    /** The separator of the first line break, or {@code \n} if there is none. */
+    private static String lineSeparator(byte[] bytes, int from, int length, Charset charset) {
+        boolean wide = charset.equals(StandardCharsets.UTF_16BE) || charset.equals(StandardCharsets.UTF_16LE);
+        int step = wide ? 2 : 1;
+        int low = charset.equals(StandardCharsets.UTF_16LE) ? 0 : step - 1;
+        for (int i = from; i + step <= length; i += step) {
+            if (wide && bytes[i + 1 - low] != 0) continue;
+            if (bytes[i + low] == '\n') {
+                int prev = i - step;
+                boolean cr = prev >= from && bytes[prev + low] == '\r' && (!wide || bytes[prev + 1 - low] == 0);
+                return cr ? "\r\n" : "\n";
+            }
+        }
+        return "\n";
+    }
+}
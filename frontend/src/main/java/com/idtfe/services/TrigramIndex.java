@@ -0,0 +1,629 @@
+package com.idtfe.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Project-wide content search. Every file in a {@link FileIndex} is broken
+ * into case-folded byte trigrams with a posting list (sorted file ids) per
+ * trigram. A query is reduced to the trigrams any match must contain, the
+ * posting lists are intersected, and only the surviving candidates are
+ * scanned, in parallel, through memory-mapped reads. The index is saved
+ * under the data directory and reconciled against the file index on open,
+ * so only files changed since the last session are read again; after that
+ * it follows the file index's change notifications.
+ */
+public class TrigramIndex implements AutoCloseable {
+    private static final int MAGIC = 0x49445431; // "IDT1"
+    private static final int VERSION = 1;
+    private static final long MAX_FILE_BYTES = Long.getLong("idtfe.search.maxFileBytes", 4L * 1024 * 1024);
+    private static final int MAX_RESULTS = Integer.getInteger("idtfe.search.maxResults", 10_000);
+    private static final int MAX_LINE_CHARS = 400;
+    private static final int BINARY_PROBE_BYTES = 8000;
+
+    public record Match(Path path, int line, int column, String text) {}
+
+    public record Result(int matches, int filesMatched, int candidates, int indexedFiles, boolean truncated, long elapsedMs) {}
+
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    private final FileIndex files;
+    private final Path store;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // File ids are never reused: a changed file gets a new id and the old one is marked dead
+    private final List<Path> paths = new ArrayList<>();
+    private long[] sizes = new long[256];
+    private long[] mtimes = new long[256];
+    private final Map<Path, Integer> ids = new HashMap<>();
+    private final BitSet dead = new BitSet();
+    // Binary or oversized files: tracked so they are not re-read, but never searched
+    private final BitSet skipped = new BitSet();
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    private int deadCount;
+    private volatile boolean dirty;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final FileIndex.Listener listener = this::onFileChanged;
+    private final CompletableFuture<Integer> ready;
+
+    private TrigramIndex(FileIndex files, Path store) {
+        this.files = files;
+        this.store = store;
+        // Load from disk while the file index scans, then read what changed in between
+        CompletableFuture<Void> loaded = TaskExecutor.getInstance().supplyAsync(() -> {
+            load();
+            return null;
+        });
+        this.ready = loaded.thenCombine(files.whenReady(), (none, count) -> none)
+            .thenComposeAsync(none -> reconcile(), TaskExecutor.getInstance()::execute);
+    }
+
+    /** Opens (loading from disk where possible) the search index for {@code files}' project. */
+    public static TrigramIndex open(FileIndex files) {
+        Path store = null;
+        try {
+            store = AppData.dir("search").resolve(hash(files.getRoot().toString()) + ".idx");
+        } catch (IOException e) {
+            // index lives in memory only
+        }
+        return new TrigramIndex(files, store);
+    }
+
+    /** Completes with the number of indexed files once the index is current. */
+    public CompletableFuture<Integer> whenReady() {
+        return ready;
+    }
+
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
+    @Override
+    public void close() {
+        closed.set(true);
+        ready.cancel(true);
+        files.removeListener(listener);
+        if (dirty) TaskExecutor.getInstance().execute(this::save);
+    }
+
+    /**
+     * Streams every matching line to {@code sink} (from worker threads) and
+     * completes with a summary. Cancelling the future stops the workers.
+     */
+    public CompletableFuture<Result> search(String query, boolean regex, boolean caseSensitive, Consumer<Match> sink) {
+        Pattern pattern;
+        try {
+            // Lines are searched within the whole file, so ^ and $ must match at line breaks
+            int flags = Pattern.MULTILINE | (caseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            pattern = Pattern.compile(regex ? query : Pattern.quote(query), flags);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        List<String> literals = regex ? requiredLiterals(query) : List.of(query);
+        boolean foldedQuery = !caseSensitive || (regex && query.contains("(?i"));
+
+        AtomicBoolean stop = new AtomicBoolean();
+        long start = System.nanoTime();
+        int[] indexed = new int[1];
+        CompletableFuture<Result> search = TaskExecutor.getInstance().supplyAsync(() -> {
+            List<Path> candidates = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                for (int id : candidateIds(literals, foldedQuery)) candidates.add(paths.get(id));
+                indexed[0] = paths.size() - deadCount;
+            } finally {
+                lock.readLock().unlock();
+            }
+            return candidates;
+        }).thenCompose(candidates -> {
+            AtomicInteger matches = new AtomicInteger();
+            AtomicInteger filesMatched = new AtomicInteger();
+            return inParallel(candidates, stop, path -> {
+                if (scan(path, pattern, sink, matches, stop) > 0) filesMatched.incrementAndGet();
+            }).thenApply(none -> new Result(Math.min(matches.get(), MAX_RESULTS), filesMatched.get(), candidates.size(),
+                indexed[0], matches.get() > MAX_RESULTS, (System.nanoTime() - start) / 1_000_000));
+        });
+        search.whenComplete((result, error) -> stop.set(true));
+        return search;
+    }
+
+    /**
+     * Calls {@code work} for every item on up to one worker per CPU until
+     * {@code stop} is set. Completes when all workers are done; nothing
+     * blocks a pool thread waiting for tasks queued behind it.
+     */
+    private static <T> CompletableFuture<Void> inParallel(List<T> items, AtomicBoolean stop, Consumer<T> work) {
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), items.size()));
+        CompletableFuture<?>[] running = new CompletableFuture<?>[workers];
+        for (int w = 0; w < workers; w++) {
+            running[w] = TaskExecutor.getInstance().supplyAsync(() -> {
+                int i;
+                while (!stop.get() && (i = next.getAndIncrement()) < items.size()) work.accept(items.get(i));
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(running);
+    }
+
+    // Caller holds the read lock
+    private List<Integer> candidateIds(List<String> literals, boolean folded) {
+        Set<Integer> grams = new HashSet<>();
+        for (String literal : literals) {
+            byte[] bytes = literal.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i + 2 < bytes.length; i++) {
+                // Only ASCII is case-folded in the index, so folded queries skip non-ASCII trigrams
+                if (folded && (bytes[i] < 0 || bytes[i + 1] < 0 || bytes[i + 2] < 0)) continue;
+                grams.add(gram(bytes, i));
+            }
+        }
+
+        List<Integer> result = new ArrayList<>();
+        if (grams.isEmpty()) {
+            for (int id = 0; id < paths.size(); id++) {
+                if (!dead.get(id) && !skipped.get(id)) result.add(id);
+            }
+            return result;
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (int g : grams) {
+            Postings p = postings.get(g);
+            if (p == null) return result; // a required trigram occurs nowhere
+            lists.add(p);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        int[] current = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int n = current.length;
+        for (int l = 1; l < lists.size() && n > 0; l++) {
+            n = intersect(current, n, lists.get(l));
+        }
+        for (int i = 0; i < n; i++) {
+            if (!dead.get(current[i])) result.add(current[i]);
+        }
+        return result;
+    }
+
+    /** Intersects {@code ids[0..n)} with {@code other} in place; returns the new length. */
+    private static int intersect(int[] ids, int n, Postings other) {
+        int out = 0;
+        int j = 0;
+        for (int i = 0; i < n && j < other.size; i++) {
+            int id = ids[i];
+            // Galloping would help for very skewed lists; linear merge is enough here
+            while (j < other.size && other.ids[j] < id) j++;
+            if (j < other.size && other.ids[j] == id) ids[out++] = id;
+        }
+        return out;
+    }
+
+    private int scan(Path path, Pattern pattern, Consumer<Match> sink, AtomicInteger matches, AtomicBoolean stop) {
+        int found = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0 || size > MAX_FILE_BYTES) return 0;
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CharBuffer text = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(bytes);
+            int length = text.length();
+            Matcher m = pattern.matcher(text).useTransparentBounds(true).useAnchoringBounds(false);
+            int line = 1;
+            int lineStart = 0;
+            int counted = 0;
+            while (!stop.get() && m.find()) {
+                int at = m.start();
+                for (; counted < at; counted++) {
+                    if (text.get(counted) == '\n') {
+                        line++;
+                        lineStart = counted + 1;
+                    }
+                }
+                int lineEnd = lineStart;
+                while (lineEnd < length && text.get(lineEnd) != '\n') lineEnd++;
+                int shownEnd = Math.min(lineEnd, lineStart + MAX_LINE_CHARS);
+                if (shownEnd > lineStart && text.get(shownEnd - 1) == '\r') shownEnd--;
+
+                if (matches.incrementAndGet() > MAX_RESULTS) {
+                    stop.set(true);
+                    break;
+                }
+                sink.accept(new Match(path, line, at - lineStart + 1, text.subSequence(lineStart, shownEnd).toString()));
+                found++;
+                // One result per line: continue after it
+                if (lineEnd >= length) break;
+                m.region(lineEnd + 1, length);
+            }
+        } catch (IOException | RuntimeException e) {
+            // deleted or unreadable since it was indexed
+        }
+        return found;
+    }
+
+    /** Brings the loaded index in line with the scanned file index; runs once both are done. */
+    private CompletableFuture<Integer> reconcile() {
+        files.addListener(listener);
+        if (closed.get()) files.removeListener(listener); // closed meanwhile
+
+        Collection<FileIndex.Entry> current = files.entries();
+        Set<Path> live = new HashSet<>();
+        List<FileIndex.Entry> stale = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (FileIndex.Entry entry : current) {
+                live.add(entry.path());
+                if (!isCurrent(entry)) stale.add(entry);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Path> removed = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Path path : ids.keySet()) {
+                if (!live.contains(path)) removed.add(path);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (Path path : removed) remove(path);
+
+        // Read changed files in parallel
+        return inParallel(stale, closed, this::index).thenApply(none -> {
+            if (dirty) save();
+            lock.readLock().lock();
+            try {
+                return paths.size() - deadCount;
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    private void onFileChanged(Path path, FileIndex.Entry entry) {
+        if (entry == null) {
+            remove(path);
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (isCurrent(entry)) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+        index(entry);
+    }
+
+    // Caller holds a lock
+    private boolean isCurrent(FileIndex.Entry entry) {
+        Integer id = ids.get(entry.path());
+        return id != null && sizes[id] == entry.size() && mtimes[id] == entry.lastModified();
+    }
+
+    private void index(FileIndex.Entry entry) {
+        int[] grams = null;
+        if (entry.size() <= MAX_FILE_BYTES) {
+            try {
+                byte[] bytes = Files.readAllBytes(entry.path());
+                if (!isBinary(bytes)) grams = trigrams(bytes);
+            } catch (IOException e) {
+                return; // gone again; the file index will report it
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            Integer old = ids.get(entry.path());
+            if (old != null) markDead(old);
+            int id = paths.size();
+            paths.add(entry.path());
+            if (id == sizes.length) {
+                sizes = Arrays.copyOf(sizes, id * 2);
+                mtimes = Arrays.copyOf(mtimes, id * 2);
+            }
+            sizes[id] = entry.size();
+            mtimes[id] = entry.lastModified();
+            ids.put(entry.path(), id);
+            if (grams == null) {
+                skipped.set(id);
+            } else {
+                for (int g : grams) postings.computeIfAbsent(g, k -> new Postings()).add(id);
+            }
+            dirty = true;
+            if (deadCount > 1000 && deadCount > paths.size() / 3) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Path path) {
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.remove(path);
+            if (id != null) {
+                markDead(id);
+                dirty = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markDead(int id) {
+        if (!dead.get(id)) {
+            dead.set(id);
+            deadCount++;
+        }
+    }
+
+    /** Renumbers live files densely and drops dead ids from every posting list. Caller holds the write lock. */
+    private void compact() {
+        int[] remap = new int[paths.size()];
+        List<Path> livePaths = new ArrayList<>();
+        BitSet liveSkipped = new BitSet();
+        for (int id = 0; id < paths.size(); id++) {
+            if (dead.get(id)) {
+                remap[id] = -1;
+                continue;
+            }
+            int to = livePaths.size();
+            remap[id] = to;
+            livePaths.add(paths.get(id));
+            sizes[to] = sizes[id];
+            mtimes[to] = mtimes[id];
+            if (skipped.get(id)) liveSkipped.set(to);
+        }
+        postings.values().removeIf(p -> {
+            int out = 0;
+            for (int i = 0; i < p.size; i++) {
+                int to = remap[p.ids[i]];
+                if (to >= 0) p.ids[out++] = to;
+            }
+            p.size = out;
+            return out == 0;
+        });
+        paths.clear();
+        paths.addAll(livePaths);
+        ids.clear();
+        for (int id = 0; id < paths.size(); id++) ids.put(paths.get(id), id);
+        skipped.clear();
+        skipped.or(liveSkipped);
+        dead.clear();
+        deadCount = 0;
+    }
+
+    private void save() {
+        if (store == null) return;
+        lock.writeLock().lock();
+        try {
+            compact();
+            Path tmp = store.resolveSibling(store.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(files.getRoot().toString());
+                out.writeInt(paths.size());
+                for (int id = 0; id < paths.size(); id++) {
+                    out.writeUTF(files.getRoot().relativize(paths.get(id)).toString());
+                    out.writeLong(sizes[id]);
+                    out.writeLong(mtimes[id]);
+                    out.writeBoolean(skipped.get(id));
+                }
+                out.writeInt(postings.size());
+                for (Map.Entry<Integer, Postings> e : postings.entrySet()) {
+                    out.writeInt(e.getKey());
+                    out.writeInt(e.getValue().size);
+                    for (int i = 0; i < e.getValue().size; i++) out.writeInt(e.getValue().ids[i]);
+                }
+            }
+            Files.move(tmp, store, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            // keep the previous file; the index is rebuilt from the file index next time
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        if (store == null || !Files.isRegularFile(store)) return;
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(store), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+            if (!in.readUTF().equals(files.getRoot().toString())) return;
+            int count = in.readInt();
+            sizes = new long[Math.max(256, count)];
+            mtimes = new long[sizes.length];
+            for (int id = 0; id < count; id++) {
+                Path path = files.getRoot().resolve(in.readUTF());
+                paths.add(path);
+                ids.put(path, id);
+                sizes[id] = in.readLong();
+                mtimes[id] = in.readLong();
+                if (in.readBoolean()) skipped.set(id);
+            }
+            int grams = in.readInt();
+            for (int g = 0; g < grams; g++) {
+                int key = in.readInt();
+                Postings p = new Postings();
+                p.size = in.readInt();
+                p.ids = new int[Math.max(4, p.size)];
+                for (int i = 0; i < p.size; i++) p.ids[i] = in.readInt();
+                postings.put(key, p);
+            }
+        } catch (IOException | RuntimeException e) {
+            // corrupt or from an older version: start over
+            paths.clear();
+            ids.clear();
+            postings.clear();
+            skipped.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean isBinary(byte[] bytes) {
+        int probe = Math.min(bytes.length, BINARY_PROBE_BYTES);
+        for (int i = 0; i < probe; i++) {
+            if (bytes[i] == 0) return true;
+        }
+        return false;
+    }
+
+    /** Distinct case-folded trigrams of {@code bytes}, sorted. */
+    static int[] trigrams(byte[] bytes) {
+        if (bytes.length < 3) return new int[0];
+        int[] grams = new int[bytes.length - 2];
+        for (int i = 0; i < grams.length; i++) grams[i] = gram(bytes, i);
+        Arrays.sort(grams);
+        int n = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (n == 0 || grams[n - 1] != grams[i]) grams[n++] = grams[i];
+        }
+        return Arrays.copyOf(grams, n);
+    }
+
+    private static int gram(byte[] bytes, int i) {
+        return (fold(bytes[i]) << 16) | (fold(bytes[i + 1]) << 8) | fold(bytes[i + 2]);
+    }
+
+    private static int fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b & 0xFF;
+    }
+
+    /**
+     * Literal runs that every match of {@code regex} must contain. Anything
+     * not understood makes the run optional, and alternation anywhere
+     * disables filtering, so the result never excludes a real match.
+     */
+    static List<String> requiredLiterals(String regex) {
+        List<String> runs = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '|':
+                    return List.of();
+                case '\\':
+                    if (i + 1 >= regex.length()) break;
+                    char next = regex.charAt(++i);
+                    if (next == 'Q') {
+                        int end = regex.indexOf("\\E", i + 1);
+                        String quoted = end < 0 ? regex.substring(i + 1) : regex.substring(i + 1, end);
+                        if (depth == 0) run.append(quoted);
+                        i = end < 0 ? regex.length() : end + 1;
+                    } else if (Character.isLetterOrDigit(next)) {
+                        flush(runs, run); // class, escape or back-reference
+                    } else if (depth == 0) {
+                        run.append(next);
+                    }
+                    break;
+                case '[':
+                    flush(runs, run);
+                    int j = i + 1;
+                    if (j < regex.length() && regex.charAt(j) == '^') j++;
+                    if (j < regex.length() && regex.charAt(j) == ']') j++;
+                    while (j < regex.length() && regex.charAt(j) != ']') {
+                        if (regex.charAt(j) == '\\') j++;
+                        j++;
+                    }
+                    i = j;
+                    break;
+                case '*':
+                case '?':
+                case '{':
+                    // The preceding character is optional
+                    if (run.length() > 0) run.setLength(run.length() - 1);
+                    flush(runs, run);
+                    if (c == '{') {
+                        int close = regex.indexOf('}', i);
+                        if (close > 0) i = close;
+                    }
+                    break;
+                case '(':
+                    flush(runs, run);
+                    if (i + 1 < regex.length() && regex.charAt(i + 1) == '?') {
+                        int k = i + 2;
+                        while (k < regex.length() && (Character.isLetter(regex.charAt(k)) || regex.charAt(k) == '-')) k++;
+                        if (k < regex.length() && regex.charAt(k) == ')') {
+                            i = k; // inline flags such as (?i)
+                            break;
+                        }
+                        if (k >= regex.length() || regex.charAt(k) != ':') return List.of(); // lookaround etc.
+                        i = k;
+                    }
+                    depth++;
+                    break;
+                case ')':
+                    flush(runs, run);
+                    depth = Math.max(0, depth - 1);
+                    break;
+                case '+':
+                case '.':
+                case '^':
+                case '$':
+                    flush(runs, run);
+                    break;
+                default:
+                    // Text inside groups may be repeated zero times; only top-level text is required
+                    if (depth == 0) run.append(c);
+            }
+        }
+        flush(runs, run);
+        return runs;
+    }
+
+    private static void flush(List<String> runs, StringBuilder run) {
+        if (run.length() >= 3) runs.add(run.toString());
+        run.setLength(0);
+    }
+
+    private static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(text.hashCode());
+        }
+    }
+}